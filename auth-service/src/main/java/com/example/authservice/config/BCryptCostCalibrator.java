@@ -0,0 +1,85 @@
+package com.example.authservice.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+
+// Подбирает cost BCrypt под целевое время проверки пароля на текущем железе.
+// Каждый шаг cost удваивает время, поэтому достаточно измерить одну опорную точку
+// и проверить выбранное значение.
+public class BCryptCostCalibrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(BCryptCostCalibrator.class);
+
+    static final int MIN_STRENGTH = 10;
+
+    static final int MAX_STRENGTH = 16;
+
+    private static final int BASELINE_STRENGTH = 10;
+
+    private static final int SAMPLES = 3;
+
+    private static final String SAMPLE_PASSWORD = "calibration-password";
+
+    private BCryptCostCalibrator() {
+    }
+
+    public static int calibrate(Duration targetLatency) {
+        long targetNanos = targetLatency.toNanos();
+        long baselineNanos = measureMatches(BASELINE_STRENGTH);
+
+        // Оценка: cost = опорный + log2(цель / время опорного), но не ниже MIN_STRENGTH
+        int strength = BASELINE_STRENGTH;
+        long predicted = baselineNanos;
+        while (strength < MAX_STRENGTH && predicted * 2 <= targetNanos) {
+            strength++;
+            predicted *= 2;
+        }
+
+        // Проверяем выбранное значение реальным замером и при необходимости снижаем
+        long measured = strength == BASELINE_STRENGTH ? baselineNanos : measureMatches(strength);
+        while (strength > MIN_STRENGTH && measured > targetNanos) {
+            strength--;
+            measured = measureMatches(strength);
+        }
+
+        logger.info("BCrypt calibrated: strength {} verifies in {} ms (target {} ms)",
+                strength, Duration.ofNanos(measured).toMillis(), targetLatency.toMillis());
+        return strength;
+    }
+
+    // Лучшее из нескольких измерений matches после прогрева
+    static long measureMatches(int strength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        String hash = encoder.encode(SAMPLE_PASSWORD);
+        encoder.matches(SAMPLE_PASSWORD, hash);
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.matches(SAMPLE_PASSWORD, hash);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    // Можно запустить отдельно от сервиса, аргумент — целевое время, например 250ms
+    public static void main(String[] args) {
+        Duration target = args.length > 0 ? parseDuration(args[0]) : Duration.ofMillis(250);
+        for (int strength = MIN_STRENGTH; strength <= MAX_STRENGTH; strength++) {
+            long nanos = measureMatches(strength);
+            System.out.printf("strength %2d: %6d ms%n", strength, Duration.ofNanos(nanos).toMillis());
+            if (nanos > target.toNanos() * 2) {
+                break;
+            }
+        }
+        System.out.println("recommended strength: " + calibrate(target));
+    }
+
+    private static Duration parseDuration(String value) {
+        String millis = value.endsWith("ms") ? value.substring(0, value.length() - 2) : value;
+        return Duration.ofMillis(Long.parseLong(millis));
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.authservice.config;
+
+import com.example.authservice.service.UserLookupCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+// Попадания и промахи кэшей в формате стандартных метрик Micrometer (cache.gets с тегом result).
+// Значения читаются из счётчиков самих кэшей только при сборе метрик, горячий путь не меняется
+@Component
+public class CacheMetrics implements MeterBinder {
+
+    private final UserLookupCache userLookupCache;
+
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    public CacheMetrics(UserLookupCache userLookupCache, VerifiedTokenCache verifiedTokenCache) {
+        this.userLookupCache = userLookupCache;
+        this.verifiedTokenCache = verifiedTokenCache;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", userLookupCache, UserLookupCache::getHitCount)
+                .tags("cache", "users", "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", userLookupCache, UserLookupCache::getMissCount)
+                .tags("cache", "users", "result", "miss")
+                .register(registry);
+        Gauge.builder("cache.size", userLookupCache, UserLookupCache::size)
+                .tag("cache", "users")
+                .register(registry);
+
+        FunctionCounter.builder("cache.gets", verifiedTokenCache, VerifiedTokenCache::getHitCount)
+                .tags("cache", "verified-tokens", "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", verifiedTokenCache, VerifiedTokenCache::getMissCount)
+                .tags("cache", "verified-tokens", "result", "miss")
+                .register(registry);
+        Gauge.builder("cache.size", verifiedTokenCache, VerifiedTokenCache::size)
+                .tag("cache", "verified-tokens")
+                .register(registry);
+        // Рост вытеснений при полном кэше - сигнал увеличить jwt.cache.max-size
+        FunctionCounter.builder("cache.evictions", verifiedTokenCache, VerifiedTokenCache::getEvictionCount)
+                .tag("cache", "verified-tokens")
+                .register(registry);
+    }
+}
@@ -5,6 +5,9 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import com.example.authservice.service.TokenRevocationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -12,29 +15,58 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenUtil jwtTokenUtil;
 
-    public JwtAuthenticationFilter(JwtTokenUtil jwtTokenUtil) {
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    private final TokenRevocationService revocationService;
+
+    // Время работы самого фильтра (без остальной цепочки) для запросов с токеном
+    private final Timer filterTimer;
+
+    public JwtAuthenticationFilter(JwtTokenUtil jwtTokenUtil, VerifiedTokenCache verifiedTokenCache,
+                                   TokenRevocationService revocationService, MeterRegistry meterRegistry) {
         this.jwtTokenUtil = jwtTokenUtil;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.revocationService = revocationService;
+        // Гистограмма агрегируется по экземплярам; фильтр укладывается в доли миллисекунды
+        this.filterTimer = Timer.builder("jwt.filter.duration")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(10_000))
+                .maximumExpectedValue(Duration.ofMillis(100))
+                .register(meterRegistry);
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException, IOException {
         String token = extractTokenFromRequest(request);
-        if (token != null && jwtTokenUtil.validateToken(token, jwtTokenUtil.extractUsername(token))) {
-            // Если токен валидный, устанавливаем аутентификацию
-            Authentication authentication = new UsernamePasswordAuthenticationToken(jwtTokenUtil.extractUsername(token),
-                    null, new ArrayList<>());
-            SecurityContextHolder.getContext().setAuthentication(authentication);
+        if (token != null) {
+            long startedAt = System.nanoTime();
+            TokenClaims claims = resolveClaims(token);
+            // Отзыв проверяется на каждый запрос, в том числе для claims из кэша
+            if (claims != null && !revocationService.isSessionRevoked(claims.getSessionId())) {
+                // Роли берутся из подписанного токена: авторизация не обращается к userservice
+                Authentication authentication = new UsernamePasswordAuthenticationToken(claims.getSubject(),
+                        null, claims.getAuthorities());
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            }
+            filterTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
         }
         filterChain.doFilter(request, response);
     }
 
+    // Горячие токены берём из кэша, подпись проверяем только при промахе
+    private TokenClaims resolveClaims(String token) {
+        return verifiedTokenCache.get(token, value -> jwtTokenUtil.validateToken(value).orElse(null));
+    }
+
     private String extractTokenFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (bearerToken != null && bearerToken.startsWith("Bearer ")) {
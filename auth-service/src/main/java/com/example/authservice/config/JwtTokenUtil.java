@@ -1,56 +1,236 @@
 package com.example.authservice.config;
 
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.ProtectedHeader;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.security.Key;
+import java.time.Duration;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtTokenUtil {
 
-    @Value("${jwt.secret-key}")
-    private String secretKey;
+    private static final Logger logger = LoggerFactory.getLogger(JwtTokenUtil.class);
 
+    static final String ROLES_CLAIM = "roles";
 
-    @Value("${jwt.expiration-time}")
-    private long expirationTime;
+    static final String TYPE_CLAIM = "token_type";
 
-    public String generateToken(String username) {
-        JwtBuilder builder = Jwts.builder()
-                .setSubject(username)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + expirationTime))
-                .signWith(SignatureAlgorithm.HS256, secretKey);
+    static final String SESSION_CLAIM = "sid";
 
-        return builder.compact();
+    // Начало сессии (секунды epoch, как auth_time в OIDC): переносится во все токены сессии
+    static final String SESSION_START_CLAIM = "auth_time";
+
+    public static final String ACCESS_TOKEN = "access";
+
+    public static final String REFRESH_TOKEN = "refresh";
+
+    private final SigningKeyManager signingKeyManager;
+
+    private final long expirationTime;
+
+    private final long refreshTtlMillis;
+
+    private final long sessionMaxLifetimeMillis;
+
+    // Парсер потокобезопасен, поэтому создаём его один раз, а не на каждый запрос.
+    // Ключ проверки выбирается по kid из заголовка, так что ротация не требует пересоздания парсера
+    private final JwtParser parser;
+
+    private final Timer accessSignTimer;
+
+    private final Timer refreshSignTimer;
+
+    private final Timer serviceSignTimer;
+
+    private final Timer validTimer;
+
+    private final Timer invalidTimer;
+
+    private final Tracer tracer;
+
+    public JwtTokenUtil(SigningKeyManager signingKeyManager,
+                        @Value("${jwt.expiration-time}") long expirationTime,
+                        @Value("${jwt.refresh.ttl:24h}") Duration refreshTtl,
+                        @Value("${jwt.session.max-lifetime:7d}") Duration sessionMaxLifetime,
+                        MeterRegistry meterRegistry,
+                        Tracer tracer) {
+        this.signingKeyManager = signingKeyManager;
+        this.expirationTime = expirationTime;
+        this.refreshTtlMillis = refreshTtl.toMillis();
+        this.sessionMaxLifetimeMillis = sessionMaxLifetime.toMillis();
+        // Метрики регистрируются один раз, на горячем пути только record()
+        this.accessSignTimer = signTimer(meterRegistry, ACCESS_TOKEN);
+        this.refreshSignTimer = signTimer(meterRegistry, REFRESH_TOKEN);
+        this.serviceSignTimer = signTimer(meterRegistry, "service");
+        this.validTimer = validateTimer(meterRegistry, "valid");
+        this.invalidTimer = validateTimer(meterRegistry, "invalid");
+        this.tracer = tracer;
+        this.parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(ProtectedHeader header) {
+                        return signingKeyManager.getVerificationKey(header.getKeyId());
+                    }
+                })
+                .build();
+    }
+
+    // Роли кладутся в токен, чтобы авторизация выполнялась локально по claims,
+    // без запроса пользователя в userservice на каждый запрос
+    public String generateToken(String username, Collection<String> roles) {
+        return generateToken(username, roles, expirationTime);
+    }
+
+    // Токены подписываются ES256 текущим ключом; kid позволяет проверяющей стороне
+    // выбрать открытый ключ из JWKS (/.well-known/jwks.json)
+    public String generateToken(String username, Collection<String> roles, long ttlMillis) {
+        return sign(username, roles, ttlMillis, null, null, 0);
+    }
+
+    // Короткоживущий access-токен новой сессии; sid позволяет отозвать его вместе с сессией
+    public String generateAccessToken(String username, Collection<String> roles, String sessionId) {
+        return generateAccessToken(username, roles, sessionId, System.currentTimeMillis());
+    }
+
+    public String generateAccessToken(String username, Collection<String> roles, String sessionId,
+                                      long sessionStartedAt) {
+        return sign(username, roles, expirationTime, sessionId, ACCESS_TOKEN, sessionStartedAt);
+    }
+
+    // Одноразовый refresh-токен: jti помечается использованным при обмене на новую пару токенов
+    public String generateRefreshToken(String username, Collection<String> roles, String sessionId) {
+        return generateRefreshToken(username, roles, sessionId, System.currentTimeMillis());
+    }
+
+    // Скользящий срок refresh TTL ограничен абсолютным сроком сессии: после
+    // sessionStartedAt + jwt.session.max-lifetime продлить сессию нельзя, нужен новый вход
+    public String generateRefreshToken(String username, Collection<String> roles, String sessionId,
+                                       long sessionStartedAt) {
+        return sign(username, roles, refreshTtlMillis, sessionId, REFRESH_TOKEN, sessionStartedAt);
+    }
+
+    public long getRefreshTtlMillis() {
+        return refreshTtlMillis;
+    }
+
+    // Проверяет подпись и срок действия за один разбор токена.
+    // Пустой результат означает, что токен поддельный, повреждён, просрочен или подписан неизвестным ключом.
+    // Refresh-токен не принимается вместо access-токена.
+    public Optional<TokenClaims> validateToken(String token) {
+        return parse(token).filter(claims -> !REFRESH_TOKEN.equals(claims.getType()));
+    }
+
+    public Optional<TokenClaims> validateRefreshToken(String token) {
+        return parse(token).filter(claims -> REFRESH_TOKEN.equals(claims.getType())
+                && claims.getTokenId() != null && claims.getSessionId() != null);
+    }
+
+    private String sign(String username, Collection<String> roles, long ttlMillis, String sessionId, String type,
+                        long sessionStartedAt) {
+        long startedAt = System.nanoTime();
+        // Подпись ES256 - отдельный span внутри трассы запроса; вне запроса трасса не начинается
+        Span span = tracer.currentSpan() == null ? null : tracer.nextSpan().name("jwt sign").start();
+        if (span != null) {
+            span.tag("token.type", type == null ? "service" : type);
+        }
+        // span закрывается и при ошибке подписи, иначе он не попадёт в трассу и останется открытым
+        try {
+            SigningKey key = signingKeyManager.getCurrent();
+            long now = System.currentTimeMillis();
+            long expiresAt = now + ttlMillis;
+            if (sessionId != null) {
+                expiresAt = Math.min(expiresAt, sessionStartedAt + sessionMaxLifetimeMillis);
+            }
+            JwtBuilder builder = Jwts.builder()
+                    .header().keyId(key.getKeyId()).and()
+                    .subject(username)
+                    .claim(ROLES_CLAIM, roles == null ? List.of() : List.copyOf(roles))
+                    .issuedAt(new Date(now))
+                    .expiration(new Date(expiresAt));
+            if (sessionId != null) {
+                builder.id(UUID.randomUUID().toString())
+                        .claim(SESSION_CLAIM, sessionId)
+                        .claim(SESSION_START_CLAIM, TimeUnit.MILLISECONDS.toSeconds(sessionStartedAt))
+                        .claim(TYPE_CLAIM, type);
+            }
+            String token = builder.signWith(key.getKeyPair().getPrivate(), Jwts.SIG.ES256).compact();
+            Timer timer = type == null ? serviceSignTimer : REFRESH_TOKEN.equals(type) ? refreshSignTimer : accessSignTimer;
+            timer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            return token;
+        } catch (RuntimeException e) {
+            if (span != null) {
+                span.error(e);
+            }
+            throw e;
+        } finally {
+            if (span != null) {
+                span.end();
+            }
+        }
     }
 
-    public String extractUsername(String token) {
-        return Jwts.parser()
-                .setSigningKey(secretKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+    private Optional<TokenClaims> parse(String token) {
+        long startedAt = System.nanoTime();
+        try {
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            Long sessionStartedAt = claims.get(SESSION_START_CLAIM, Long.class);
+            TokenClaims tokenClaims = new TokenClaims(claims.getSubject(), claims.getExpiration(), extractRoles(claims),
+                    claims.getId(), claims.get(SESSION_CLAIM, String.class), claims.get(TYPE_CLAIM, String.class),
+                    sessionStartedAt == null ? 0 : TimeUnit.SECONDS.toMillis(sessionStartedAt));
+            validTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            return Optional.of(tokenClaims);
+        } catch (JwtException | IllegalArgumentException e) {
+            invalidTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            logger.debug("Rejected JWT: {}", e.getMessage());
+            return Optional.empty();
+        }
     }
 
-    public boolean validateToken(String token, String username) {
-        return (username.equals(extractUsername(token))&& !isTokenExpired(token));
+    // Гистограмма вместо перцентилей в процессе: бакеты суммируются по экземплярам,
+    // p95/p99 считаются в Prometheus через histogram_quantile. Границы - от 10 мкс до 100 мс,
+    // иначе подмиллисекундные операции попадут в первый бакет по умолчанию (1 мс)
+    private static Timer signTimer(MeterRegistry meterRegistry, String type) {
+        return Timer.builder("jwt.token.generate")
+                .tag("type", type)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(10_000))
+                .maximumExpectedValue(Duration.ofMillis(100))
+                .register(meterRegistry);
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    private static Timer validateTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("jwt.token.validate")
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(10_000))
+                .maximumExpectedValue(Duration.ofMillis(100))
+                .register(meterRegistry);
     }
 
-    private Date extractExpiration(String token) {
-        return Jwts.parser()
-                .setSigningKey(secretKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getExpiration();
+    private List<String> extractRoles(Claims claims) {
+        Object roles = claims.get(ROLES_CLAIM);
+        if (!(roles instanceof List<?> list)) {
+            return List.of();
+        }
+        return list.stream().map(String::valueOf).toList();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,34 @@
+package com.example.authservice.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.config.TopicConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+import java.time.Duration;
+
+@Configuration
+public class KafkaTopicConfig {
+
+    @Value("${jwt.revocation.topic:token-revocations}")
+    private String topic;
+
+    @Value("${jwt.revocation.replicas:1}")
+    private int replicas;
+
+    @Value("${jwt.refresh.ttl:24h}")
+    private Duration refreshTtl;
+
+    // Слушатели читают топик отзывов с начала, поэтому новый узел восстанавливает все действующие отзывы.
+    // Отзыв старше срока жизни refresh-токена уже не нужен, так что хранение ограничено этим сроком
+    @Bean
+    public NewTopic tokenRevocationsTopic() {
+        return TopicBuilder.name(topic)
+                .partitions(1)
+                .replicas(replicas)
+                .config(TopicConfig.RETENTION_MS_CONFIG, String.valueOf(refreshTtl.toMillis()))
+                .build();
+    }
+}
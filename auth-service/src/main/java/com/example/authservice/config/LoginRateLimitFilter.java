@@ -0,0 +1,56 @@
+package com.example.authservice.config;
+
+import com.example.authservice.service.LoginRateLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+// Предел по IP для эндпоинтов, проверяющих пароль. Стоит первым в цепочке фильтров:
+// отклонённый запрос не доходит ни до Spring Security, ни до разбора JSON, ни до BCrypt
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class LoginRateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginRateLimitFilter.class);
+
+    private static final Set<String> LIMITED_PATHS = Set.of("/auth/login", "/auth/validate");
+
+    private final LoginRateLimiter rateLimiter;
+
+    public LoginRateLimitFilter(LoginRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || !LIMITED_PATHS.contains(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        // За прокси адрес клиента восстанавливается из X-Forwarded-For (server.forward-headers-strategy)
+        long retryAfterMillis = rateLimiter.tryAcquireClient(request.getRemoteAddr());
+        if (retryAfterMillis > 0) {
+            logger.debug("Rate limit exceeded for client {}", request.getRemoteAddr());
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER,
+                    String.valueOf(LoginRateLimiter.toRetryAfterSeconds(retryAfterMillis)));
+            response.getWriter().write("Too many authentication attempts");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.authservice.config;
+
+import com.example.common.config.BoundedPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+
+@Configuration
+public class PasswordHashingConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashingConfig.class);
+
+    // Отдельный ограниченный пул для BCrypt: проверка пароля не занимает ни потоки Tomcat,
+    // ни event loop WebClient, а при переполнении очереди запрос получает 503.
+    // В режиме virtual-threads пул остаётся платформенным: BCrypt нагружает CPU
+    // и на виртуальном потоке занимал бы carrier-поток целиком
+    @Bean(destroyMethod = "shutdown")
+    public BoundedPasswordEncoder passwordEncoder(
+            @Value("${auth.password-hashing.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int threads,
+            @Value("${auth.password-hashing.queue-capacity:1000}") int queueCapacity,
+            @Value("${auth.password-hashing.retry-after-seconds:1}") long retryAfterSeconds,
+            @Value("${auth.password-hashing.bcrypt-strength:10}") String bcryptStrength,
+            @Value("${auth.password-hashing.target-latency:250ms}") Duration targetLatency,
+            MeterRegistry meterRegistry,
+            Tracer tracer) {
+        int strength = resolveStrength(bcryptStrength, targetLatency);
+        // BCryptPasswordEncoder проверяет хеши любого cost, а upgradeEncoding
+        // сообщает, что хеш создан с cost ниже целевого и его пора пересчитать
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength), threads, queueCapacity,
+                retryAfterSeconds, meterRegistry, tracer);
+    }
+
+    private int resolveStrength(String bcryptStrength, Duration targetLatency) {
+        if ("auto".equalsIgnoreCase(bcryptStrength.trim())) {
+            return BCryptCostCalibrator.calibrate(targetLatency);
+        }
+        int strength = Integer.parseInt(bcryptStrength.trim());
+        logger.info("BCrypt strength configured: {}", strength);
+        return strength;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.authservice.config;
+
+import com.example.authservice.service.InMemoryRateLimiterBackend;
+import com.example.authservice.service.RateLimiterBackend;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RateLimitConfig {
+
+    // Предел на узел; для общего предела кластера достаточно объявить свой RateLimiterBackend с @Primary
+    @Bean
+    public RateLimiterBackend rateLimiterBackend() {
+        return new InMemoryRateLimiterBackend();
+    }
+}
@@ -1,48 +1,28 @@
 package com.example.authservice.config;
 
-import com.example.authservice.dto.UserDto;
-import com.example.authservice.service.UserServiceClient;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
-import org.springframework.security.core.userdetails.User;
-import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 @Configuration
 @EnableWebSecurity
+@EnableMethodSecurity
 public class SecurityConfig {
 
     @Autowired
     JwtAuthenticationFilter jwtAuthenticationFilter;
 
-    @Autowired
-    UserServiceClient userServiceClient;
-
-    @Bean
-    public AuthenticationManager authManager(AuthenticationConfiguration authenticationConfiguration) throws Exception {
-        return authenticationConfiguration.getAuthenticationManager();
-    }
-
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
-
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http.csrf(csrf -> csrf.disable()) // Отключаем CSRF защиту
                 .authorizeRequests()
-                .requestMatchers("/auth/login", "/auth/validate").permitAll()
+                .requestMatchers("/auth/login", "/auth/validate", "/auth/refresh", "/auth/logout", "/.well-known/jwks.json").permitAll()
+                .requestMatchers("/actuator/health", "/actuator/metrics/**", "/actuator/prometheus").permitAll()
                 .anyRequest().authenticated()
                 .and()
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class); // Добавляем JWT фильтр
@@ -50,24 +30,8 @@ public class SecurityConfig {
         return http.build();
     }
 
-    @Bean
-    public UserDetailsService userDetailsService() {
-        return username -> {
-            UserDto userDto = userServiceClient.getUserByEmail(username);
-            if (userDto == null) {
-                throw new UsernameNotFoundException("User not found with email: " + username);
-            }
-
-            // Преобразуем роли в массив строк
-            String[] roles = userDto.getRoles().toArray(new String[0]);
-
-            // Возвращаем объект UserDetails с паролем и ролями
-            return User.withUsername(userDto.getEmail())
-                    .password(userDto.getPassword()) // Убедитесь, что пароль зашифрован
-                    .roles(roles)
-                    .build();
-        };
-    }
+    // UserDetailsService не нужен: пароль проверяет AuthService, а запросы с токеном
+    // авторизуются по ролям из claims в JwtAuthenticationFilter без обращения к userservice
 
 
 //    @Bean
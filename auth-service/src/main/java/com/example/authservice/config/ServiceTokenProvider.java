@@ -0,0 +1,57 @@
+package com.example.authservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+// Сервисный токен auth-service для вызовов userservice (роль SERVICE).
+// Выпускается заранее и переиспользуется, пока до истечения остаётся больше refresh-before
+@Component
+public class ServiceTokenProvider {
+
+    static final String SERVICE_ROLE = "SERVICE";
+
+    private final JwtTokenUtil jwtTokenUtil;
+
+    private final String subject;
+
+    private final long ttlMillis;
+
+    private final long refreshBeforeMillis;
+
+    private volatile CachedToken cached;
+
+    public ServiceTokenProvider(JwtTokenUtil jwtTokenUtil,
+                                @Value("${jwt.service-token.subject:auth-service}") String subject,
+                                @Value("${jwt.service-token.ttl:5m}") Duration ttl,
+                                @Value("${jwt.service-token.refresh-before:1m}") Duration refreshBefore) {
+        this.jwtTokenUtil = jwtTokenUtil;
+        this.subject = subject;
+        this.ttlMillis = ttl.toMillis();
+        this.refreshBeforeMillis = refreshBefore.toMillis();
+    }
+
+    public String getToken() {
+        CachedToken token = cached;
+        if (token == null || token.refreshAt <= System.currentTimeMillis()) {
+            token = refresh();
+        }
+        return token.value;
+    }
+
+    private synchronized CachedToken refresh() {
+        long now = System.currentTimeMillis();
+        CachedToken token = cached;
+        if (token == null || token.refreshAt <= now) {
+            String value = jwtTokenUtil.generateToken(subject, List.of(SERVICE_ROLE), ttlMillis);
+            token = new CachedToken(value, now + ttlMillis - refreshBeforeMillis);
+            cached = token;
+        }
+        return token;
+    }
+
+    private record CachedToken(String value, long refreshAt) {
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.authservice.config;
+
+import java.security.KeyPair;
+import java.security.interfaces.ECPublicKey;
+
+// Ключ подписи ES256 с идентификатором kid, который попадает в заголовок токена.
+// Неизменяемый: смена состояния (ввод в действие, вывод) даёт новую копию, которая сохраняется в SigningKeyStore
+public class SigningKey {
+
+    private final String keyId;
+    private final KeyPair keyPair;
+    private final long createdAt;
+
+    // Момент, с которого ключ подписывает новые токены; 0 - ключ опубликован заранее и ещё не используется
+    private final long activatedAt;
+
+    // Момент, когда ключ перестал подписывать новые токены; 0 - ключ ещё не выведен
+    private final long retiredAt;
+
+    public SigningKey(String keyId, KeyPair keyPair, long createdAt) {
+        this(keyId, keyPair, createdAt, 0, 0);
+    }
+
+    SigningKey(String keyId, KeyPair keyPair, long createdAt, long activatedAt, long retiredAt) {
+        this.keyId = keyId;
+        this.keyPair = keyPair;
+        this.createdAt = createdAt;
+        this.activatedAt = activatedAt;
+        this.retiredAt = retiredAt;
+    }
+
+    public String getKeyId() {
+        return keyId;
+    }
+
+    public KeyPair getKeyPair() {
+        return keyPair;
+    }
+
+    public ECPublicKey getPublicKey() {
+        return (ECPublicKey) keyPair.getPublic();
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getActivatedAt() {
+        return activatedAt;
+    }
+
+    public long getRetiredAt() {
+        return retiredAt;
+    }
+
+    boolean isActive() {
+        return activatedAt != 0 && retiredAt == 0;
+    }
+
+    SigningKey activate(long now) {
+        return new SigningKey(keyId, keyPair, createdAt, now, 0);
+    }
+
+    SigningKey retire(long now) {
+        return new SigningKey(keyId, keyPair, createdAt, activatedAt, now);
+    }
+}
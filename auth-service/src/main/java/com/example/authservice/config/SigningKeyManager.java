@@ -0,0 +1,169 @@
+package com.example.authservice.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Набор ключей ES256 с ротацией по расписанию.
+// Следующий ключ публикуется в JWKS заранее, за целый интервал ротации до начала использования,
+// поэтому сервисы с кэшем JWKS узнают о нём до появления первых токенов с новым kid.
+// Выведенный ключ остаётся в JWKS, пока не истекут подписанные им токены, включая refresh-токены:
+// срок хранения - наибольший из сроков access, refresh и сессии плюс допуск на расхождение часов.
+// Ключи хранятся в общем каталоге (SigningKeyStore): все экземпляры подписывают и публикуют одни
+// и те же ключи. Ротацию проводит экземпляр, первым заметивший срок, остальные перечитывают каталог
+// при каждой проверке и подхватывают её не позже чем через rotation-check-interval-ms
+@Component
+public class SigningKeyManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(SigningKeyManager.class);
+
+    private final long rotationIntervalMillis;
+
+    private final long retentionMillis;
+
+    private final SigningKeyStore store;
+
+    private volatile Map<String, SigningKey> verificationKeys = Map.of();
+
+    private volatile SigningKey current;
+
+    public SigningKeyManager(@Value("${jwt.signing.rotation-interval:24h}") Duration rotationInterval,
+                             @Value("${jwt.expiration-time}") long expirationTime,
+                             @Value("${jwt.refresh.ttl:24h}") Duration refreshTtl,
+                             @Value("${jwt.session.max-lifetime:7d}") Duration sessionMaxLifetime,
+                             @Value("${jwt.signing.clock-skew:1m}") Duration clockSkew,
+                             @Value("${jwt.signing.key-store-path}") Path keyStorePath) {
+        this.rotationIntervalMillis = rotationInterval.toMillis();
+        this.retentionMillis = Math.max(expirationTime, Math.max(refreshTtl.toMillis(), sessionMaxLifetime.toMillis()))
+                + clockSkew.toMillis();
+        this.store = new SigningKeyStore(keyStorePath);
+        // Первый запуск создаёт ключи, последующие (и другие экземпляры) используют уже сохранённые
+        long now = System.currentTimeMillis();
+        store.withLock(() -> update(now, false));
+        logger.info("Loaded {} JWT signing keys from {}, current key {}",
+                verificationKeys.size(), keyStorePath, current.getKeyId());
+    }
+
+    public SigningKey getCurrent() {
+        return current;
+    }
+
+    public PublicKey getVerificationKey(String keyId) {
+        SigningKey key = keyId == null ? null : verificationKeys.get(keyId);
+        return key == null ? null : key.getPublicKey();
+    }
+
+    // Ключи для публикации в JWKS: текущий, следующий и ещё не истёкшие выведенные
+    public List<SigningKey> getPublishedKeys() {
+        return new ArrayList<>(verificationKeys.values());
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.signing.rotation-check-interval-ms:60000}")
+    public void rotateIfDue() {
+        rotateIfDue(System.currentTimeMillis());
+    }
+
+    // Чтение каталога без блокировки; блокировка берётся, только если пора ротировать или удалять ключи
+    void rotateIfDue(long now) {
+        apply(store.load());
+        boolean expired = verificationKeys.values().stream().anyMatch(key -> isExpired(key, now));
+        if (now - current.getActivatedAt() >= rotationIntervalMillis || expired) {
+            store.withLock(() -> update(now, false));
+        }
+    }
+
+    void rotate(long now) {
+        store.withLock(() -> update(now, true));
+    }
+
+    // Выполняется под блокировкой на только что прочитанном состоянии: другой экземпляр
+    // мог провести ротацию между проверкой срока и получением блокировки
+    private Void update(long now, boolean force) {
+        List<SigningKey> keys = store.load();
+        SigningKey active = findCurrent(keys);
+        SigningKey upcoming = findNext(keys);
+        if (active == null || force || now - active.getActivatedAt() >= rotationIntervalMillis) {
+            SigningKey activated = (upcoming == null ? generate(now) : upcoming).activate(now);
+            // Сначала вводится новый ключ, потом выводятся прежние: при сбое между шагами
+            // остаются два активных ключа, и лишний будет выведен при следующей ротации
+            store.save(activated);
+            for (SigningKey key : keys) {
+                if (key.isActive()) {
+                    store.save(key.retire(now));
+                }
+            }
+            upcoming = null;
+            if (active != null) {
+                logger.info("Rotated JWT signing key: {} -> {}", active.getKeyId(), activated.getKeyId());
+            }
+        }
+        if (upcoming == null) {
+            store.save(generate(now));
+        }
+        for (SigningKey key : keys) {
+            if (isExpired(key, now)) {
+                store.delete(key.getKeyId());
+                logger.info("Removed expired JWT signing key {}", key.getKeyId());
+            }
+        }
+        apply(store.load());
+        return null;
+    }
+
+    private void apply(List<SigningKey> keys) {
+        SigningKey active = findCurrent(keys);
+        if (active == null) {
+            // Каталог пуст или повреждён извне: продолжаем с последним известным набором
+            logger.error("No active JWT signing key in {}, keeping the previous key set", store.getDirectory());
+            return;
+        }
+        verificationKeys = keys.stream().collect(Collectors.toUnmodifiableMap(SigningKey::getKeyId, Function.identity()));
+        current = active;
+    }
+
+    private boolean isExpired(SigningKey key, long now) {
+        return key.getRetiredAt() != 0 && now - key.getRetiredAt() > retentionMillis;
+    }
+
+    private static SigningKey findCurrent(List<SigningKey> keys) {
+        return keys.stream()
+                .filter(SigningKey::isActive)
+                .max(Comparator.comparingLong(SigningKey::getActivatedAt))
+                .orElse(null);
+    }
+
+    private static SigningKey findNext(List<SigningKey> keys) {
+        return keys.stream()
+                .filter(key -> key.getActivatedAt() == 0)
+                .min(Comparator.comparingLong(SigningKey::getCreatedAt))
+                .orElse(null);
+    }
+
+    private static SigningKey generate(long now) {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+            KeyPair keyPair = generator.generateKeyPair();
+            return new SigningKey(UUID.randomUUID().toString(), keyPair, now);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to generate ES256 signing key", e);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.authservice.config;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+// Ключи подписи в общем каталоге: по файлу <kid>.key на ключ (PKCS#8 и X.509 в Base64 и моменты
+// жизненного цикла). Каталог общий для всех экземпляров auth-service, поэтому они подписывают
+// и публикуют одни и те же ключи, а рестарт не делает выданные токены недействительными.
+// Изменения выполняются под блокировкой файла .lock; файл ключа заменяется атомарно,
+// так что читатель без блокировки видит либо старую, либо новую версию
+class SigningKeyStore {
+
+    private static final String KEY_SUFFIX = ".key";
+
+    // Блокировка файла принадлежит всему процессу: потоки одной JVM упорядочиваются монитором
+    private static final Object PROCESS_LOCK = new Object();
+
+    private final Path directory;
+
+    SigningKeyStore(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create signing key directory " + directory, e);
+        }
+    }
+
+    Path getDirectory() {
+        return directory;
+    }
+
+    List<SigningKey> load() {
+        List<SigningKey> keys = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + KEY_SUFFIX)) {
+            for (Path file : files) {
+                keys.add(read(file));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read signing keys from " + directory, e);
+        }
+        return keys;
+    }
+
+    void save(SigningKey key) {
+        Properties properties = new Properties();
+        properties.setProperty("kid", key.getKeyId());
+        properties.setProperty("created-at", Long.toString(key.getCreatedAt()));
+        properties.setProperty("activated-at", Long.toString(key.getActivatedAt()));
+        properties.setProperty("retired-at", Long.toString(key.getRetiredAt()));
+        properties.setProperty("private-key", encode(key.getKeyPair().getPrivate().getEncoded()));
+        properties.setProperty("public-key", encode(key.getKeyPair().getPublic().getEncoded()));
+        Path file = directory.resolve(key.getKeyId() + KEY_SUFFIX);
+        Path temporary = directory.resolve(key.getKeyId() + KEY_SUFFIX + ".tmp");
+        try {
+            createPrivateFile(temporary);
+            try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                properties.store(writer, null);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write signing key " + file, e);
+        }
+    }
+
+    void delete(String keyId) {
+        try {
+            Files.deleteIfExists(directory.resolve(keyId + KEY_SUFFIX));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete signing key " + keyId, e);
+        }
+    }
+
+    // Создание, ротация и удаление ключей - под блокировкой, общей для всех экземпляров
+    <T> T withLock(Supplier<T> action) {
+        synchronized (PROCESS_LOCK) {
+            try (FileChannel channel = FileChannel.open(directory.resolve(".lock"),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+                return action.get();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to lock signing key directory " + directory, e);
+            }
+        }
+    }
+
+    private SigningKey read(Path file) {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+            KeyFactory keyFactory = KeyFactory.getInstance("EC");
+            KeyPair keyPair = new KeyPair(
+                    keyFactory.generatePublic(new X509EncodedKeySpec(decode(properties, "public-key"))),
+                    keyFactory.generatePrivate(new PKCS8EncodedKeySpec(decode(properties, "private-key"))));
+            return new SigningKey(properties.getProperty("kid"), keyPair,
+                    Long.parseLong(properties.getProperty("created-at")),
+                    Long.parseLong(properties.getProperty("activated-at")),
+                    Long.parseLong(properties.getProperty("retired-at")));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read signing key " + file, e);
+        } catch (GeneralSecurityException | RuntimeException e) {
+            throw new IllegalStateException("Signing key file " + file + " is corrupted", e);
+        }
+    }
+
+    // Файл с закрытым ключом доступен только владельцу, если файловая система поддерживает POSIX-права
+    private void createPrivateFile(Path file) throws IOException {
+        Files.deleteIfExists(file);
+        if (file.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            Files.createFile(file, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } else {
+            Files.createFile(file);
+        }
+    }
+
+    private static String encode(byte[] bytes) {
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+
+    private static byte[] decode(Properties properties, String name) {
+        return Base64.getDecoder().decode(properties.getProperty(name));
+    }
+}
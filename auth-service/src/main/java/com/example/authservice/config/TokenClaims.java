@@ -0,0 +1,84 @@
+package com.example.authservice.config;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Date;
+import java.util.List;
+
+// Результат однократной проверки JWT: всё, что нужно фильтру, без повторного разбора токена.
+// GrantedAuthority строятся один раз и переиспользуются, пока claims лежат в VerifiedTokenCache
+public class TokenClaims {
+
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    private final String subject;
+    private final Date expiration;
+    private final List<String> roles;
+    private final List<GrantedAuthority> authorities;
+    private final String tokenId;
+    private final String sessionId;
+    private final String type;
+    // Начало сессии в миллисекундах epoch; 0, если в токене нет auth_time
+    private final long sessionStartedAt;
+
+    public TokenClaims(String subject, Date expiration, List<String> roles) {
+        this(subject, expiration, roles, null, null, null);
+    }
+
+    public TokenClaims(String subject, Date expiration, List<String> roles,
+                       String tokenId, String sessionId, String type) {
+        this(subject, expiration, roles, tokenId, sessionId, type, 0);
+    }
+
+    public TokenClaims(String subject, Date expiration, List<String> roles,
+                       String tokenId, String sessionId, String type, long sessionStartedAt) {
+        this.subject = subject;
+        this.sessionStartedAt = sessionStartedAt;
+        this.tokenId = tokenId;
+        this.sessionId = sessionId;
+        this.type = type;
+        this.expiration = expiration;
+        this.roles = List.copyOf(roles);
+        this.authorities = this.roles.stream()
+                .map(role -> role.startsWith(ROLE_PREFIX) ? role : ROLE_PREFIX + role)
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList();
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public Date getExpiration() {
+        return expiration;
+    }
+
+    public List<String> getRoles() {
+        return roles;
+    }
+
+    public List<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public long getSessionStartedAt() {
+        return sessionStartedAt;
+    }
+
+    public boolean isExpired() {
+        return expiration != null && expiration.getTime() <= System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.authservice.config;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Хранилище отозванных идентификаторов (сессий и использованных refresh-токенов).
+// Проверка выполняется на каждый запрос с токеном: это один поиск в ConcurrentHashMap без блокировок.
+// Набор содержит только записи с ещё не истёкшим сроком (не дольше срока сессии), поэтому остаётся
+// небольшим, и переживает рестарт благодаря журналу в файле (append-only, периодически сжимается).
+// Журнал принадлежит одному экземпляру: на время работы берётся блокировка файла <log>.lock
+@Component
+public class TokenRevocationStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationStore.class);
+
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    private final Path logPath;
+
+    private BufferedWriter logWriter;
+
+    private FileChannel lockChannel;
+
+    private FileLock lock;
+
+    public TokenRevocationStore(@Value("${jwt.revocation.log-path}") Path logPath) {
+        this.logPath = logPath;
+        try {
+            if (logPath.getParent() != null) {
+                Files.createDirectories(logPath.getParent());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create directory for revocation log " + logPath, e);
+        }
+        if (logPath.toAbsolutePath().startsWith(Path.of(System.getProperty("java.io.tmpdir")).toAbsolutePath())) {
+            logger.warn("Revocation log {} is in the temporary directory and may not survive a reboot", logPath);
+        }
+        acquireLock();
+        replayLog();
+        compact();
+    }
+
+    // Возвращает true, если id отозван этим вызовом, и false, если он уже был отозван
+    public boolean revoke(String id, long expiresAt) {
+        // Истёкший токен и так не пройдёт проверку, хранить его не нужно
+        if (expiresAt <= System.currentTimeMillis()) {
+            return true;
+        }
+        if (revoked.putIfAbsent(id, expiresAt) != null) {
+            return false;
+        }
+        append(id, expiresAt);
+        return true;
+    }
+
+    public boolean isRevoked(String id) {
+        if (id == null) {
+            return false;
+        }
+        Long expiresAt = revoked.get(id);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    // Удаляет истёкшие записи и переписывает журнал
+    @Scheduled(fixedDelayString = "${jwt.revocation.compaction-interval-ms:600000}")
+    public synchronized void compact() {
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+
+        try {
+            closeWriter();
+            Path compacted = logPath.resolveSibling(logPath.getFileName() + ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(compacted, StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, Long> entry : revoked.entrySet()) {
+                    writer.write(entry.getKey() + ' ' + entry.getValue());
+                    writer.newLine();
+                }
+            }
+            Files.move(compacted, logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logWriter = Files.newBufferedWriter(logPath, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to compact revocation log " + logPath, e);
+        }
+        logger.debug("Revocation store compacted, {} active entries", revoked.size());
+    }
+
+    private synchronized void append(String id, long expiresAt) {
+        try {
+            logWriter.write(id + ' ' + expiresAt);
+            logWriter.newLine();
+            logWriter.flush();
+        } catch (IOException e) {
+            // Отзыв уже действует в памяти; потеря записи в журнале важна только для рестарта
+            logger.error("Failed to persist revocation of {}", id, e);
+        }
+    }
+
+    private void replayLog() {
+        if (!Files.exists(logPath)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        try (BufferedReader reader = Files.newBufferedReader(logPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separator = line.lastIndexOf(' ');
+                if (separator <= 0) {
+                    continue;
+                }
+                long expiresAt = Long.parseLong(line.substring(separator + 1));
+                if (expiresAt > now) {
+                    revoked.put(line.substring(0, separator), expiresAt);
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            throw new IllegalStateException("Failed to read revocation log " + logPath, e);
+        }
+        logger.info("Restored {} revoked tokens from {}", revoked.size(), logPath);
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        try {
+            closeWriter();
+            if (lock != null) {
+                lock.release();
+            }
+            if (lockChannel != null) {
+                lockChannel.close();
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to close revocation log {}", logPath, e);
+        }
+    }
+
+    // Два экземпляра с общим журналом затирали бы записи друг друга при сжатии
+    private void acquireLock() {
+        Path lockPath = logPath.resolveSibling(logPath.getFileName() + ".lock");
+        try {
+            lockChannel = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to lock revocation log " + logPath, e);
+        }
+        if (lock == null) {
+            close();
+            throw new IllegalStateException("Revocation log " + logPath + " is used by another instance; "
+                    + "configure a separate jwt.revocation.log-path for each instance");
+        }
+    }
+
+    private void closeWriter() throws IOException {
+        if (logWriter != null) {
+            logWriter.close();
+            logWriter = null;
+        }
+    }
+}
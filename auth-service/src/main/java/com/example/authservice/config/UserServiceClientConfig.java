@@ -0,0 +1,110 @@
+package com.example.authservice.config;
+
+import com.example.authservice.service.CircuitBreaker;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+// Транспорт для вызовов userservice: собственный пул соединений с явными лимитами и таймаутами
+// вместо настроек Reactor Netty по умолчанию
+@Configuration
+public class UserServiceClientConfig {
+
+    @Value("${userservice.http.connect-timeout:1s}")
+    private Duration connectTimeout;
+
+    @Value("${userservice.http.response-timeout:2s}")
+    private Duration responseTimeout;
+
+    @Value("${userservice.http.protocol:http1}")
+    private String protocol;
+
+    @Autowired
+    private ServiceTokenProvider serviceTokenProvider;
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider userServiceConnectionProvider(
+            @Value("${userservice.http.pool.max-connections:100}") int maxConnections,
+            @Value("${userservice.http.pool.max-idle-time:30s}") Duration maxIdleTime,
+            @Value("${userservice.http.pool.max-life-time:5m}") Duration maxLifeTime,
+            @Value("${userservice.http.pool.pending-acquire-max-count:1000}") int pendingAcquireMaxCount,
+            @Value("${userservice.http.pool.pending-acquire-timeout:1s}") Duration pendingAcquireTimeout,
+            @Value("${userservice.http.pool.evict-in-background:30s}") Duration evictInBackground) {
+        return ConnectionProvider.builder("userservice")
+                .maxConnections(maxConnections)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                // Очередь ожидания соединения ограничена: при перегрузке отказываем сразу
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .evictInBackground(evictInBackground)
+                // Метрики пула reactor.netty.connection.provider.* для подбора размера под нагрузку
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public WebClient userServiceWebClient(
+            WebClient.Builder webClientBuilder,
+            @Qualifier("userServiceConnectionProvider") ConnectionProvider connectionProvider,
+            @Value("${userservice.url}") String userServiceUrl) {
+        return createWebClient(webClientBuilder, connectionProvider, userServiceUrl);
+    }
+
+    // Вторая реплика userservice для хеджированных запросов, создаётся только если указан её адрес
+    @Bean
+    @ConditionalOnProperty(name = "userservice.hedge.url")
+    public WebClient userServiceHedgeWebClient(
+            WebClient.Builder webClientBuilder,
+            @Qualifier("userServiceConnectionProvider") ConnectionProvider connectionProvider,
+            @Value("${userservice.hedge.url}") String hedgeUrl) {
+        return createWebClient(webClientBuilder, connectionProvider, hedgeUrl);
+    }
+
+    @Bean
+    public CircuitBreaker userServiceCircuitBreaker(
+            @Value("${userservice.circuit-breaker.failure-rate-threshold:0.5}") double failureRateThreshold,
+            @Value("${userservice.circuit-breaker.minimum-calls:20}") int minimumCalls,
+            @Value("${userservice.circuit-breaker.window:10s}") Duration window,
+            @Value("${userservice.circuit-breaker.open-duration:5s}") Duration openDuration,
+            @Value("${userservice.circuit-breaker.half-open-probes:3}") int halfOpenProbes) {
+        return new CircuitBreaker(failureRateThreshold, minimumCalls, window, openDuration, halfOpenProbes);
+    }
+
+    private WebClient createWebClient(WebClient.Builder webClientBuilder, ConnectionProvider connectionProvider,
+                                      String baseUrl) {
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(responseTimeout)
+                // h2c: HTTP/2 без TLS с prior knowledge, все запросы мультиплексируются
+                // в несколько соединений вместо соединения на запрос
+                .protocol("h2c".equalsIgnoreCase(protocol) ? HttpProtocol.H2C : HttpProtocol.HTTP11)
+                // Query string отбрасываем, чтобы email не попадал в теги метрик
+                .metrics(true, uri -> {
+                    int query = uri.indexOf('?');
+                    return query < 0 ? uri : uri.substring(0, query);
+                });
+
+        return webClientBuilder.clone()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                // userservice проверяет JWT локально: каждый вызов несёт сервисный токен с ролью SERVICE
+                .filter((request, next) -> next.exchange(ClientRequest.from(request)
+                        .headers(headers -> headers.setBearerAuth(serviceTokenProvider.getToken()))
+                        .build()))
+                .build();
+    }
+}
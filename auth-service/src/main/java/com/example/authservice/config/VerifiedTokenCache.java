@@ -0,0 +1,156 @@
+package com.example.authservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// Кэш уже проверенных токенов: клиент присылает один и тот же токен весь срок его жизни,
+// поэтому повторная проверка подписи сводится к поиску по хешу.
+// Размер ограничен вытеснением в порядке добавления: у access-токенов одинаковый срок,
+// поэтому самая старая запись истекает первой. Вытеснение - O(1) на запрос,
+// истёкшие записи удаляются при чтении и фоновой очисткой, а не обходом кэша в потоке запроса
+@Component
+public class VerifiedTokenCache {
+
+    // Прототип клонируется на каждый вызов: ThreadLocal плохо сочетается с виртуальными потоками,
+    // где каждый запрос получает новый поток и новую копию
+    private static final MessageDigest SHA_256_PROTOTYPE;
+
+    static {
+        try {
+            SHA_256_PROTOTYPE = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private final Map<ByteBuffer, TokenClaims> entries = new ConcurrentHashMap<>();
+
+    // Ключи в порядке добавления; ключи уже удалённых записей вычищаются фоновой очисткой
+    private final Queue<ByteBuffer> insertionOrder = new ConcurrentLinkedQueue<>();
+
+    private final boolean enabled;
+
+    private final int maxSize;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    public VerifiedTokenCache(@Value("${jwt.cache.enabled:true}") boolean enabled,
+                              @Value("${jwt.cache.max-size:10000}") int maxSize) {
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+    }
+
+    // Хеш токена считается один раз на запрос: он служит и для поиска, и для сохранения после проверки
+    public TokenClaims get(String token, Function<String, TokenClaims> verifier) {
+        if (!enabled) {
+            return verifier.apply(token);
+        }
+        ByteBuffer key = digest(token);
+        TokenClaims claims = lookup(key);
+        if (claims != null) {
+            return claims;
+        }
+        claims = verifier.apply(token);
+        if (claims != null) {
+            store(key, claims);
+        }
+        return claims;
+    }
+
+    public TokenClaims get(String token) {
+        return enabled ? lookup(digest(token)) : null;
+    }
+
+    public void put(String token, TokenClaims claims) {
+        if (enabled) {
+            store(digest(token), claims);
+        }
+    }
+
+    // Выполняется в фоне: обход всего кэша не попадает на путь запроса
+    @Scheduled(fixedDelayString = "${jwt.cache.eviction-interval-ms:30000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(claims -> claims.getExpiration().getTime() <= now);
+        insertionOrder.removeIf(key -> !entries.containsKey(key));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private TokenClaims lookup(ByteBuffer key) {
+        TokenClaims claims = entries.get(key);
+        if (claims == null) {
+            misses.increment();
+            return null;
+        }
+        // Запись живёт ровно до exp самого токена
+        if (claims.isExpired()) {
+            entries.remove(key, claims);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return claims;
+    }
+
+    private void store(ByteBuffer key, TokenClaims claims) {
+        // Без exp запись жила бы бессрочно: такие токены не кэшируются
+        if (claims.getExpiration() == null || claims.isExpired()) {
+            return;
+        }
+        if (entries.put(key, claims) != null) {
+            return;
+        }
+        insertionOrder.add(key);
+        // Переполненный кэш вытесняет самые старые записи, новый токен всегда попадает в кэш
+        while (entries.size() > maxSize) {
+            ByteBuffer eldest = insertionOrder.poll();
+            if (eldest == null) {
+                break;
+            }
+            if (entries.remove(eldest) != null) {
+                evictions.increment();
+            }
+        }
+    }
+
+    // Храним не сам токен, а его SHA-256, чтобы в памяти не лежали действующие bearer-токены
+    private ByteBuffer digest(String token) {
+        try {
+            MessageDigest sha256 = (MessageDigest) SHA_256_PROTOTYPE.clone();
+            return ByteBuffer.wrap(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("SHA-256 digest is not cloneable", e);
+        }
+    }
+}
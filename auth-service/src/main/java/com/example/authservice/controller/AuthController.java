@@ -1,18 +1,21 @@
 package com.example.authservice.controller;
 
-import com.example.authservice.dto.JwtResponse;
 import com.example.authservice.dto.LoginRequest;
+import com.example.authservice.dto.RefreshTokenRequest;
 import com.example.authservice.dto.ValidationResponse;
 import com.example.authservice.dto.CredentialValidationRequest;
 import com.example.authservice.service.AuthService;
-import com.example.authservice.service.UserServiceClient;
+import com.example.authservice.service.LoginRateLimiter;
+import com.example.authservice.service.UserServiceException;
+import com.example.common.exception.PasswordHashingRejectedException;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
 @RestController
 @RequestMapping("/auth")
@@ -20,63 +23,71 @@ public class AuthController {
 
     private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
     private final AuthService authService;
-    private final UserServiceClient userServiceClient;
-    private PasswordEncoder passwordEncoder;
 
-    public AuthController(AuthService authService, UserServiceClient userServiceClient,PasswordEncoder passwordEncoder) {
+    private final LoginRateLimiter rateLimiter;
+
+    public AuthController(AuthService authService, LoginRateLimiter rateLimiter) {
         this.authService = authService;
-        this.userServiceClient = userServiceClient;
-        this.passwordEncoder = passwordEncoder;
+        this.rateLimiter = rateLimiter;
     }
 
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest loginRequest) {
+    public Mono<ResponseEntity<?>> login(@Valid @RequestBody LoginRequest loginRequest) {
         logger.info("Получен запрос на вход для пользователя: {}", loginRequest.getUsername());
-        try {
-            // Пытаемся получить пользователя из userservice по email
-            var userDto = userServiceClient.getUserByEmail(loginRequest.getUsername());
-
-            if (userDto == null) {
-                logger.warn("Пользователь с таким email не найден: {}", loginRequest.getUsername());
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid username or password");
-            }
+        // Предел по учётной записи проверяется до запроса в userservice и BCrypt
+        rateLimiter.checkAccount(loginRequest.getUsername());
+
+        // Весь вход выполняется асинхронно: поток Tomcat не ждёт ни userservice, ни BCrypt
+        return authService.login(loginRequest.getUsername(), loginRequest.getPassword())
+                .<ResponseEntity<?>>map(tokens -> {
+                    logger.info("Токен успешно сгенерирован для пользователя: {}", loginRequest.getUsername());
+                    return ResponseEntity.ok(tokens);
+                })
+                .onErrorResume(BadCredentialsException.class, e -> {
+                    logger.warn("Неверный email или пароль для пользователя: {}", loginRequest.getUsername());
+                    return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid username or password"));
+                })
+                // Переполнение пула BCrypt и недоступность userservice обрабатываются глобально: 503
+                .onErrorResume(e -> !(e instanceof PasswordHashingRejectedException)
+                        && !(e instanceof UserServiceException), e -> {
+                    logger.error("Ошибка при аутентификации пользователя: {}", loginRequest.getUsername(), e);
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Authentication failed"));
+                });
+    }
 
-            // Проверяем, совпадает ли введенный пароль с тем, что хранится в базе
-            boolean passwordMatches = passwordEncoder.matches(loginRequest.getPassword(), userDto.getPassword());
-            logger.info("Пароль совпадает для пользователя {}: {}", loginRequest.getUsername(), passwordMatches);
 
-            if (!passwordMatches) {
-                logger.warn("Неверный пароль для пользователя: {}", loginRequest.getUsername());
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid username or password");
-            }
+    // Обновление не проверяет пароль, но перечитывает пользователя (роли), поэтому асинхронное, как вход.
+    // Недоступность userservice обрабатывается глобально: 503
+    @PostMapping("/refresh")
+    public Mono<ResponseEntity<?>> refresh(@Valid @RequestBody RefreshTokenRequest request) {
+        return authService.refresh(request.getRefreshToken())
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .onErrorResume(BadCredentialsException.class, e -> {
+                    logger.warn("Отклонён refresh-токен: {}", e.getMessage());
+                    return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid refresh token"));
+                });
+    }
 
-            // Генерация JWT токена
-            String token = authService.authenticateAndGenerateToken(loginRequest.getUsername(),
-                    loginRequest.getPassword());
-            logger.info("Токен успешно сгенерирован для пользователя: {}", loginRequest.getUsername());
-            return ResponseEntity.ok(new JwtResponse(token));
 
-        } catch (Exception e) {
-            logger.error("Ошибка при аутентификации пользователя: {}", loginRequest.getUsername(), e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Authentication failed");
-        }
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@Valid @RequestBody RefreshTokenRequest request) {
+        authService.logout(request.getRefreshToken());
+        return ResponseEntity.noContent().build();
     }
 
 
     @PostMapping("/validate")
-    public ResponseEntity<ValidationResponse> validateUserCredentials(
+    public Mono<ResponseEntity<ValidationResponse>> validateUserCredentials(
             @Valid @RequestBody CredentialValidationRequest request) {
         logger.info("Валидация учетных данных для email: {}", request.getEmail());
-
-        // Получаем данные о пользователе
-        var userDto = userServiceClient.getUserByEmail(request.getEmail());
+        rateLimiter.checkAccount(request.getEmail());
 
         // Если пользователя не нашли, то считаем, что его учетные данные некорректны
-        boolean isValid = userDto != null && passwordEncoder.matches(request.getPassword(), userDto.getPassword());
-
-
-        logger.info("Результат валидации для {}: {}", request.getEmail(), isValid);
-        return ResponseEntity.ok(new ValidationResponse(isValid));
+        return authService.validateCredentials(request.getEmail(), request.getPassword())
+                .map(isValid -> {
+                    logger.info("Результат валидации для {}: {}", request.getEmail(), isValid);
+                    return ResponseEntity.ok(new ValidationResponse(isValid));
+                });
     }
 }
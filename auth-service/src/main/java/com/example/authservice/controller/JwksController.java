@@ -0,0 +1,62 @@
+package com.example.authservice.controller;
+
+import com.example.authservice.config.SigningKey;
+import com.example.authservice.config.SigningKeyManager;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.math.BigInteger;
+import java.security.interfaces.ECPublicKey;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Открытые ключи проверки токенов в формате JWKS (RFC 7517).
+// Сервисы проверяют подпись локально и обращаются сюда только при смене ключей
+@RestController
+public class JwksController {
+
+    private static final int P256_COORDINATE_LENGTH = 32;
+
+    private final SigningKeyManager signingKeyManager;
+
+    public JwksController(SigningKeyManager signingKeyManager) {
+        this.signingKeyManager = signingKeyManager;
+    }
+
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, Object>> jwks() {
+        List<Map<String, String>> keys = signingKeyManager.getPublishedKeys().stream()
+                .map(this::toJwk)
+                .toList();
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic())
+                .body(Map.of("keys", keys));
+    }
+
+    private Map<String, String> toJwk(SigningKey key) {
+        ECPublicKey publicKey = key.getPublicKey();
+        Map<String, String> jwk = new LinkedHashMap<>();
+        jwk.put("kty", "EC");
+        jwk.put("crv", "P-256");
+        jwk.put("use", "sig");
+        jwk.put("alg", "ES256");
+        jwk.put("kid", key.getKeyId());
+        jwk.put("x", encodeCoordinate(publicKey.getW().getAffineX()));
+        jwk.put("y", encodeCoordinate(publicKey.getW().getAffineY()));
+        return jwk;
+    }
+
+    // Координата кривой - беззнаковое big-endian число фиксированной длины
+    private String encodeCoordinate(BigInteger coordinate) {
+        byte[] bytes = coordinate.toByteArray();
+        byte[] fixed = new byte[P256_COORDINATE_LENGTH];
+        int length = Math.min(bytes.length, P256_COORDINATE_LENGTH);
+        System.arraycopy(bytes, bytes.length - length, fixed, P256_COORDINATE_LENGTH - length, length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(fixed);
+    }
+}
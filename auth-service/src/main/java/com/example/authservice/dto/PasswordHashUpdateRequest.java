@@ -0,0 +1,41 @@
+package com.example.authservice.dto;
+
+public class PasswordHashUpdateRequest {
+
+    private String email;
+    private String previousHash;
+    private String newHash;
+
+    public PasswordHashUpdateRequest() {
+    }
+
+    public PasswordHashUpdateRequest(String email, String previousHash, String newHash) {
+        this.email = email;
+        this.previousHash = previousHash;
+        this.newHash = newHash;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getPreviousHash() {
+        return previousHash;
+    }
+
+    public void setPreviousHash(String previousHash) {
+        this.previousHash = previousHash;
+    }
+
+    public String getNewHash() {
+        return newHash;
+    }
+
+    public void setNewHash(String newHash) {
+        this.newHash = newHash;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.authservice.dto;
+
+// Сообщение об отзыве, рассылается всем узлам через Kafka (топик jwt.revocation.topic).
+// SESSION - отозвана вся сессия (выход или повторное использование refresh-токена),
+// TOKEN - использован одноразовый refresh-токен
+public class TokenRevocation {
+
+    public static final String SESSION = "SESSION";
+    public static final String TOKEN = "TOKEN";
+
+    private String id;
+    private String kind;
+    private long expiresAt;
+
+    public TokenRevocation() {
+    }
+
+    public TokenRevocation(String id, String kind, long expiresAt) {
+        this.id = id;
+        this.kind = kind;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public void setKind(String kind) {
+        this.kind = kind;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
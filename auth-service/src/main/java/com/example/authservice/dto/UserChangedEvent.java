@@ -0,0 +1,62 @@
+package com.example.authservice.dto;
+
+// Событие об изменении пользователя из userservice (топик userservice.events.topic)
+public class UserChangedEvent {
+
+    private String type;
+    private Long userId;
+    private String email;
+    private String previousEmail;
+    private long occurredAt;
+
+    public UserChangedEvent() {
+    }
+
+    public UserChangedEvent(String type, Long userId, String email, String previousEmail, long occurredAt) {
+        this.type = type;
+        this.userId = userId;
+        this.email = email;
+        this.previousEmail = previousEmail;
+        this.occurredAt = occurredAt;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getPreviousEmail() {
+        return previousEmail;
+    }
+
+    public void setPreviousEmail(String previousEmail) {
+        this.previousEmail = previousEmail;
+    }
+
+    public long getOccurredAt() {
+        return occurredAt;
+    }
+
+    public void setOccurredAt(long occurredAt) {
+        this.occurredAt = occurredAt;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.authservice.exception;
+
+// Превышен предел попыток входа: клиенту отвечаем 429 с Retry-After
+public class RateLimitExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public RateLimitExceededException(long retryAfterSeconds) {
+        super("Too many authentication attempts");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
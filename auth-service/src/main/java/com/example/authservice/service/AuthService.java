@@ -1,16 +1,19 @@
 package com.example.authservice.service;
 
 import com.example.authservice.config.JwtTokenUtil;
+import com.example.authservice.config.TokenClaims;
+import com.example.authservice.dto.JwtResponse;
+import com.example.common.config.BoundedPasswordEncoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
 
 
 @Service
@@ -18,67 +21,116 @@ public class AuthService {
 
     private static final Logger logger = LoggerFactory.getLogger(AuthService.class);
 
-    @Autowired
-    private AuthenticationManager authenticationManager;
-
     @Autowired
     private JwtTokenUtil jwtTokenUtil;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private BoundedPasswordEncoder passwordEncoder;
 
     @Autowired
     UserServiceClient userServiceClient;
 
-    // Метод для аутентификации пользователя по email и паролю
-    public boolean validateUserCredentials(String email, String password) {
-        try {
-            logger.info("Attempting authentication for user: {}", email);
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(email, password)
-            );
-            SecurityContextHolder.getContext().setAuthentication(authentication);
-            logger.info("Authentication successful for user: {}", email);
-            return true; // Если аутентификация прошла успешно
-        } catch (BadCredentialsException e) {
-            logger.error("Authentication failed for user: {}", email);
-            return false; // Если аутентификация не прошла
+    @Autowired
+    private TokenRevocationService revocationService;
+
+    // Вход: пользователь запрашивается ровно один раз и пароль проверяется ровно один раз.
+    // BCrypt выполняется на выделенном пуле, поток запроса на время ожидания освобождается
+    public Mono<JwtResponse> login(String username, String password) {
+        logger.info("Fetching user details for email: {}", username);
+        return userServiceClient.getUserByEmailAsync(username)
+                .switchIfEmpty(Mono.error(() -> {
+                    logger.warn("User not found with email: {}", username);
+                    return new BadCredentialsException("Invalid username or password");
+                }))
+                .flatMap(userDto -> passwordMatches(password, userDto.getPassword())
+                        .flatMap(matches -> {
+                            if (!matches) {
+                                logger.warn("Password mismatch for user: {}", username);
+                                return Mono.error(new BadCredentialsException("Invalid username or password"));
+                            }
+                            logger.info("Password validation successful for user: {}", username);
+                            rehashIfOutdated(username, password, userDto.getPassword());
+                            return Mono.just(issueTokens(username, userDto.getRoles(), UUID.randomUUID().toString(),
+                                    System.currentTimeMillis()));
+                        }));
+    }
+
+    // Обмен refresh-токена на новую пару без BCrypt. Пользователь перечитывается (обычно из кэша,
+    // который сбрасывается событиями userservice): роли в новых токенах актуальны, а сессия
+    // удалённого пользователя отзывается. Срок сессии не продлевается дальше jwt.session.max-lifetime.
+    // Refresh-токен одноразовый; повторное предъявление означает утечку, поэтому отзывается вся сессия
+    public Mono<JwtResponse> refresh(String refreshToken) {
+        Optional<TokenClaims> validated = jwtTokenUtil.validateRefreshToken(refreshToken);
+        if (validated.isEmpty()) {
+            return Mono.error(new BadCredentialsException("Invalid refresh token"));
         }
+        TokenClaims claims = validated.get();
+        if (revocationService.isSessionRevoked(claims.getSessionId())) {
+            return Mono.error(new BadCredentialsException("Session has been revoked"));
+        }
+        return userServiceClient.getUserByEmailAsync(claims.getSubject())
+                .switchIfEmpty(Mono.error(() -> {
+                    logger.warn("User {} no longer exists, revoking session", claims.getSubject());
+                    revocationService.revokeSession(claims.getSessionId(), sessionExpiresAt());
+                    return new BadCredentialsException("User no longer exists");
+                }))
+                .map(userDto -> {
+                    if (!revocationService.consumeRefreshToken(claims.getTokenId(), claims.getExpiration().getTime())) {
+                        logger.warn("Refresh token reuse detected for user: {}, revoking session", claims.getSubject());
+                        revocationService.revokeSession(claims.getSessionId(), sessionExpiresAt());
+                        throw new BadCredentialsException("Refresh token has already been used");
+                    }
+                    // Токены без auth_time выпущены до введения абсолютного срока: сессия считается начатой сейчас
+                    long sessionStartedAt = claims.getSessionStartedAt() > 0
+                            ? claims.getSessionStartedAt()
+                            : System.currentTimeMillis();
+                    return issueTokens(claims.getSubject(), userDto.getRoles(), claims.getSessionId(), sessionStartedAt);
+                });
+    }
+
+    // Выход отзывает сессию целиком: её access-токены перестают приниматься на всех узлах
+    public void logout(String refreshToken) {
+        jwtTokenUtil.validateRefreshToken(refreshToken).ifPresent(claims -> {
+            revocationService.revokeSession(claims.getSessionId(), sessionExpiresAt());
+            logger.info("Session revoked for user: {}", claims.getSubject());
+        });
+    }
+
+    // Неблокирующая проверка учетных данных для /auth/validate
+    public Mono<Boolean> validateCredentials(String email, String password) {
+        return userServiceClient.getUserByEmailAsync(email)
+                .flatMap(userDto -> passwordMatches(password, userDto.getPassword()))
+                .defaultIfEmpty(false);
     }
 
-    // Метод для выполнения аутентификации и генерации токена
-    public String authenticateAndGenerateToken(String username, String password) throws BadCredentialsException {
-        try {
-            // Получаем пользователя из базы
-            logger.info("Fetching user details for email: {}", username);
-            var userDto = userServiceClient.getUserByEmail(username);
-            if (userDto == null) {
-                logger.error("User not found with email: {}", username);
-                throw new BadCredentialsException("Invalid username or password");
-            }
-
-            logger.info("Found user: {}", userDto);
-
-            // Логируем полученный закодированный пароль
-            logger.info("Encoded password from database: {}", userDto.getPassword());
-            logger.info("Raw password from request: {}", password);
-
-            // Проверка пароля
-            if (!passwordEncoder.matches(password, userDto.getPassword())) {
-                logger.error("Password mismatch for user: {}", username);
-                throw new BadCredentialsException("Invalid username or password");
-            }
-
-            logger.info("Password validation successful for user: {}", username);
-
-            // Если проверка прошла, генерируем токен
-            Authentication authentication = new UsernamePasswordAuthenticationToken(username, password);
-            SecurityContextHolder.getContext().setAuthentication(authentication);
-            logger.info("Authentication context set for user: {}", username);
-            return jwtTokenUtil.generateToken(username); // Возвращаем токен
-        } catch (BadCredentialsException e) {
-            logger.error("Authentication failed for username: {}", username);
-            throw new BadCredentialsException("Invalid username or password");
+    // Хеш со старым cost пересчитывается в фоне после успешного входа.
+    // Ответ клиенту не ждёт пересчёта, а ошибка пересчёта не влияет на вход
+    private void rehashIfOutdated(String email, String rawPassword, String encodedPassword) {
+        if (!passwordEncoder.upgradeEncoding(encodedPassword)) {
+            return;
         }
+        logger.info("Upgrading password hash cost for user: {}", email);
+        Mono.fromFuture(() -> passwordEncoder.encodeAsync(rawPassword))
+                .flatMap(newHash -> userServiceClient.updatePasswordHash(email, encodedPassword, newHash))
+                .subscribe(
+                        ignored -> {
+                        },
+                        e -> logger.warn("Password hash upgrade failed for user: {}", email, e));
+    }
+
+    private JwtResponse issueTokens(String username, Collection<String> roles, String sessionId,
+                                    long sessionStartedAt) {
+        return new JwtResponse(jwtTokenUtil.generateAccessToken(username, roles, sessionId, sessionStartedAt),
+                jwtTokenUtil.generateRefreshToken(username, roles, sessionId, sessionStartedAt));
+    }
+
+    // Последний refresh-токен сессии живёт не дольше refresh TTL, после этого отзыв можно забыть
+    private long sessionExpiresAt() {
+        return System.currentTimeMillis() + jwtTokenUtil.getRefreshTtlMillis();
+    }
+
+    private Mono<Boolean> passwordMatches(String rawPassword, String encodedPassword) {
+        // Поток вызывающего не блокируется: результат придёт из пула BCrypt
+        return Mono.fromFuture(() -> passwordEncoder.matchesAsync(rawPassword, encodedPassword));
     }
 }
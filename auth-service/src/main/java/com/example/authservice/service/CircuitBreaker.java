@@ -0,0 +1,154 @@
+package com.example.authservice.service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Circuit breaker для вызовов userservice.
+// CLOSED: вызовы идут, считается доля ошибок в окне; при превышении порога — OPEN.
+// OPEN: вызовы сразу отклоняются, через openDuration — HALF_OPEN.
+// HALF_OPEN: пропускается несколько пробных вызовов; все успешны — CLOSED, любая ошибка — снова OPEN.
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final double failureRateThreshold;
+
+    private final int minimumCalls;
+
+    private final long windowNanos;
+
+    private final long openNanos;
+
+    private final int halfOpenProbes;
+
+    private final ReentrantLock transitionLock = new ReentrantLock();
+
+    private volatile State state = State.CLOSED;
+
+    private volatile long windowStartedAt = System.nanoTime();
+
+    private volatile long openedAt;
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private final AtomicInteger failures = new AtomicInteger();
+
+    private final AtomicInteger probePermits = new AtomicInteger();
+
+    private final AtomicInteger probeSuccesses = new AtomicInteger();
+
+    public CircuitBreaker(double failureRateThreshold, int minimumCalls, Duration window,
+                          Duration openDuration, int halfOpenProbes) {
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumCalls = minimumCalls;
+        this.windowNanos = window.toNanos();
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenProbes = halfOpenProbes;
+    }
+
+    public boolean tryAcquirePermission() {
+        State current = state;
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                return false;
+            }
+            transition(State.OPEN, State.HALF_OPEN);
+        }
+        // HALF_OPEN: только ограниченное число пробных вызовов
+        return probePermits.getAndDecrement() > 0;
+    }
+
+    public void onSuccess() {
+        State current = state;
+        if (current == State.HALF_OPEN) {
+            if (probeSuccesses.incrementAndGet() >= halfOpenProbes) {
+                transition(State.HALF_OPEN, State.CLOSED);
+            }
+            return;
+        }
+        if (current == State.CLOSED) {
+            rollWindowIfExpired();
+            calls.incrementAndGet();
+        }
+    }
+
+    public void onFailure() {
+        State current = state;
+        if (current == State.HALF_OPEN) {
+            transition(State.HALF_OPEN, State.OPEN);
+            return;
+        }
+        if (current == State.CLOSED) {
+            rollWindowIfExpired();
+            int totalCalls = calls.incrementAndGet();
+            int totalFailures = failures.incrementAndGet();
+            if (totalCalls >= minimumCalls && (double) totalFailures / totalCalls >= failureRateThreshold) {
+                transition(State.CLOSED, State.OPEN);
+            }
+        }
+    }
+
+    // Вызов отменён и не дал результата: пробное разрешение возвращается
+    public void releasePermission() {
+        if (state == State.HALF_OPEN) {
+            probePermits.incrementAndGet();
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    // Сколько осталось до пробных вызовов, для заголовка Retry-After
+    public Duration getRemainingOpenTime() {
+        if (state != State.OPEN) {
+            return Duration.ZERO;
+        }
+        return Duration.ofNanos(Math.max(0, openNanos - (System.nanoTime() - openedAt)));
+    }
+
+    private void rollWindowIfExpired() {
+        long now = System.nanoTime();
+        if (now - windowStartedAt < windowNanos) {
+            return;
+        }
+        transitionLock.lock();
+        try {
+            if (now - windowStartedAt >= windowNanos) {
+                calls.set(0);
+                failures.set(0);
+                windowStartedAt = now;
+            }
+        } finally {
+            transitionLock.unlock();
+        }
+    }
+
+    private void transition(State from, State to) {
+        transitionLock.lock();
+        try {
+            if (state != from) {
+                return;
+            }
+            switch (to) {
+                case OPEN -> openedAt = System.nanoTime();
+                case HALF_OPEN -> {
+                    probePermits.set(halfOpenProbes);
+                    probeSuccesses.set(0);
+                }
+                case CLOSED -> {
+                    calls.set(0);
+                    failures.set(0);
+                    windowStartedAt = System.nanoTime();
+                }
+            }
+            state = to;
+        } finally {
+            transitionLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.authservice.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Бюджет хеджирования: каждый вызов пополняет его на maxRatio, каждый дублирующий запрос тратит единицу.
+// Доля хеджированных запросов не превышает maxRatio (плюс запас burst), даже если оценка p95
+// занижена или userservice замедлился целиком - тогда дубли лишь удвоили бы нагрузку на него
+public class HedgeBudget {
+
+    // Баланс хранится в миллионных долях запроса, чтобы пополнение дробной долей обходилось без блокировок
+    private static final long UNIT = 1_000_000;
+
+    private final long creditPerCall;
+
+    private final long capacity;
+
+    private final AtomicLong balance;
+
+    public HedgeBudget(double maxRatio, int burst) {
+        this.creditPerCall = Math.round(maxRatio * UNIT);
+        this.capacity = Math.max(1, burst) * UNIT;
+        this.balance = new AtomicLong(capacity);
+    }
+
+    public void onCall() {
+        balance.accumulateAndGet(creditPerCall, (current, credit) -> Math.min(capacity, current + credit));
+    }
+
+    public boolean tryAcquire() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < UNIT) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - UNIT));
+        return true;
+    }
+}
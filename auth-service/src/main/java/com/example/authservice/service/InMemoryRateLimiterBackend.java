@@ -0,0 +1,54 @@
+package com.example.authservice.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Token bucket в форме GCRA: состояние корзины - одно число, теоретическое время прихода следующего
+// запроса (TAT). Проверка - чтение из ConcurrentHashMap и один CAS, без блокировок и без выделения памяти
+// для уже известного ключа. Корзина, у которой TAT в прошлом, полна и равна отсутствующей, поэтому
+// такие записи удаляются при очистке
+public class InMemoryRateLimiterBackend implements RateLimiterBackend {
+
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    @Override
+    public long tryAcquire(String key, int capacity, Duration refillInterval) {
+        return tryAcquire(key, capacity, refillInterval.toNanos(), System.nanoTime());
+    }
+
+    long tryAcquire(String key, int capacity, long intervalNanos, long now) {
+        long burstNanos = intervalNanos * capacity;
+        AtomicLong tat = buckets.get(key);
+        if (tat == null) {
+            tat = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+        while (true) {
+            long current = tat.get();
+            long next = Math.max(current, now) + intervalNanos;
+            long excess = next - now - burstNanos;
+            if (excess > 0) {
+                return Math.max(1, TimeUnit.NANOSECONDS.toMillis(excess));
+            }
+            if (tat.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    @Override
+    public void evictExpired() {
+        evictExpired(System.nanoTime());
+    }
+
+    void evictExpired(long now) {
+        // Гонка с параллельным tryAcquire может стоить одного лишнего токена, это допустимо
+        buckets.entrySet().removeIf(entry -> entry.getValue().get() - now <= 0);
+    }
+
+    int size() {
+        return buckets.size();
+    }
+}
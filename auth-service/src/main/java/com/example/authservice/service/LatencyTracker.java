@@ -0,0 +1,44 @@
+package com.example.authservice.service;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Скользящая оценка p95 задержки userservice по последним SAMPLES вызовам.
+// Перцентиль пересчитывается раз в RECOMPUTE_INTERVAL записей, чтение — одно volatile-поле.
+public class LatencyTracker {
+
+    private static final int SAMPLES = 1024;
+
+    private static final int MIN_SAMPLES = 100;
+
+    private static final int RECOMPUTE_INTERVAL = 64;
+
+    private final AtomicLongArray samples = new AtomicLongArray(SAMPLES);
+
+    private final AtomicLong recorded = new AtomicLong();
+
+    private volatile long p95Nanos = -1;
+
+    public void record(long nanos) {
+        long count = recorded.getAndIncrement();
+        samples.set((int) (count % SAMPLES), nanos);
+        if ((count + 1) >= MIN_SAMPLES && (count + 1) % RECOMPUTE_INTERVAL == 0) {
+            recompute(Math.min(count + 1, SAMPLES));
+        }
+    }
+
+    // -1, пока данных недостаточно
+    public long getP95Nanos() {
+        return p95Nanos;
+    }
+
+    private void recompute(long size) {
+        long[] copy = new long[(int) size];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = samples.get(i);
+        }
+        Arrays.sort(copy);
+        p95Nanos = copy[(int) Math.ceil(copy.length * 0.95) - 1];
+    }
+}
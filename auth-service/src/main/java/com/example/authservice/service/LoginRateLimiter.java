@@ -0,0 +1,88 @@
+package com.example.authservice.service;
+
+import com.example.authservice.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+
+// Ограничение попыток проверки пароля: по IP клиента (LoginRateLimitFilter, до разбора тела запроса)
+// и по email (AuthController, до обращения к userservice и BCrypt). Предел по email защищает
+// конкретную учётную запись от перебора с множества адресов
+@Component
+public class LoginRateLimiter {
+
+    private final RateLimiterBackend backend;
+
+    private final boolean enabled;
+
+    private final int clientCapacity;
+
+    private final Duration clientRefillInterval;
+
+    private final int accountCapacity;
+
+    private final Duration accountRefillInterval;
+
+    private final Counter clientRejections;
+
+    private final Counter accountRejections;
+
+    public LoginRateLimiter(RateLimiterBackend backend,
+                            @Value("${auth.rate-limit.enabled:true}") boolean enabled,
+                            @Value("${auth.rate-limit.client.capacity:20}") int clientCapacity,
+                            @Value("${auth.rate-limit.client.refill-interval:1s}") Duration clientRefillInterval,
+                            @Value("${auth.rate-limit.account.capacity:5}") int accountCapacity,
+                            @Value("${auth.rate-limit.account.refill-interval:20s}") Duration accountRefillInterval,
+                            MeterRegistry meterRegistry) {
+        this.backend = backend;
+        this.enabled = enabled;
+        this.clientCapacity = clientCapacity;
+        this.clientRefillInterval = clientRefillInterval;
+        this.accountCapacity = accountCapacity;
+        this.accountRefillInterval = accountRefillInterval;
+        this.clientRejections = Counter.builder("auth.rate-limit.rejected")
+                .tag("scope", "client")
+                .register(meterRegistry);
+        this.accountRejections = Counter.builder("auth.rate-limit.rejected")
+                .tag("scope", "account")
+                .register(meterRegistry);
+    }
+
+    // Возвращает 0 или число миллисекунд до следующей разрешённой попытки
+    public long tryAcquireClient(String clientAddress) {
+        if (!enabled || clientAddress == null) {
+            return 0;
+        }
+        long retryAfterMillis = backend.tryAcquire("ip:" + clientAddress, clientCapacity, clientRefillInterval);
+        if (retryAfterMillis > 0) {
+            clientRejections.increment();
+        }
+        return retryAfterMillis;
+    }
+
+    public void checkAccount(String email) {
+        if (!enabled || email == null) {
+            return;
+        }
+        long retryAfterMillis = backend.tryAcquire("email:" + email.trim().toLowerCase(Locale.ROOT),
+                accountCapacity, accountRefillInterval);
+        if (retryAfterMillis > 0) {
+            accountRejections.increment();
+            throw new RateLimitExceededException(toRetryAfterSeconds(retryAfterMillis));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${auth.rate-limit.eviction-interval-ms:10000}")
+    public void evictExpired() {
+        backend.evictExpired();
+    }
+
+    public static long toRetryAfterSeconds(long retryAfterMillis) {
+        return Math.max(1, (retryAfterMillis + 999) / 1000);
+    }
+}
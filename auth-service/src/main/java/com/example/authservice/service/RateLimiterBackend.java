@@ -0,0 +1,17 @@
+package com.example.authservice.service;
+
+import java.time.Duration;
+
+// Хранилище token bucket'ов для LoginRateLimiter. Реализация в памяти ограничивает каждый узел отдельно;
+// общий предел для кластера даёт реализация поверх разделяемого хранилища (например, Redis с атомарным скриптом),
+// зарегистрированная как bean этого типа
+public interface RateLimiterBackend {
+
+    // Забирает токен из корзины key (ёмкость capacity, один токен восстанавливается за refillInterval).
+    // Возвращает 0, если запрос разрешён, иначе через сколько миллисекунд появится следующий токен
+    long tryAcquire(String key, int capacity, Duration refillInterval);
+
+    // Удаление неактивных корзин; распределённые реализации обычно полагаются на TTL ключей
+    default void evictExpired() {
+    }
+}
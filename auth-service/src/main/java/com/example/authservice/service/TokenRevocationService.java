@@ -0,0 +1,92 @@
+package com.example.authservice.service;
+
+import com.example.authservice.config.TokenRevocationStore;
+import com.example.authservice.dto.TokenRevocation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+// Отзыв сессий и refresh-токенов. Отзыв сразу действует на этом узле, а остальным узлам
+// (и userservice) рассылается через Kafka, поэтому вступает в силу везде за секунды
+@Service
+public class TokenRevocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private final TokenRevocationStore revocationStore;
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final String topic;
+
+    private final boolean broadcastEnabled;
+
+    public TokenRevocationService(TokenRevocationStore revocationStore,
+                                  KafkaTemplate<String, String> kafkaTemplate,
+                                  ObjectMapper objectMapper,
+                                  @Value("${jwt.revocation.topic:token-revocations}") String topic,
+                                  @Value("${jwt.revocation.broadcast-enabled:true}") boolean broadcastEnabled) {
+        this.revocationStore = revocationStore;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.topic = topic;
+        this.broadcastEnabled = broadcastEnabled;
+    }
+
+    public boolean isSessionRevoked(String sessionId) {
+        return revocationStore.isRevoked(sessionId);
+    }
+
+    public void revokeSession(String sessionId, long expiresAt) {
+        if (revocationStore.revoke(sessionId, expiresAt)) {
+            broadcast(new TokenRevocation(sessionId, TokenRevocation.SESSION, expiresAt));
+        }
+    }
+
+    // Помечает refresh-токен использованным. false означает, что он уже был обменян ранее
+    public boolean consumeRefreshToken(String tokenId, long expiresAt) {
+        if (!revocationStore.revoke(tokenId, expiresAt)) {
+            return false;
+        }
+        broadcast(new TokenRevocation(tokenId, TokenRevocation.TOKEN, expiresAt));
+        return true;
+    }
+
+    // Узел получает и собственные сообщения; повторный отзыв в хранилище ничего не меняет
+    @KafkaListener(topics = "${jwt.revocation.topic:token-revocations}",
+            groupId = "#{'auth-service-revocations-' + T(java.util.UUID).randomUUID()}",
+            autoStartup = "${jwt.revocation.broadcast-enabled:true}",
+            properties = "auto.offset.reset=earliest")
+    public void onRevocation(String payload) {
+        try {
+            TokenRevocation revocation = objectMapper.readValue(payload, TokenRevocation.class);
+            revocationStore.revoke(revocation.getId(), revocation.getExpiresAt());
+        } catch (JsonProcessingException e) {
+            logger.warn("Skipping malformed revocation message: {}", e.getMessage());
+        }
+    }
+
+    private void broadcast(TokenRevocation revocation) {
+        if (!broadcastEnabled) {
+            return;
+        }
+        try {
+            kafkaTemplate.send(topic, revocation.getId(), objectMapper.writeValueAsString(revocation))
+                    .whenComplete((result, e) -> {
+                        if (e != null) {
+                            logger.error("Failed to broadcast revocation of {} {}", revocation.getKind(),
+                                    revocation.getId(), e);
+                        }
+                    });
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize revocation", e);
+        }
+    }
+}
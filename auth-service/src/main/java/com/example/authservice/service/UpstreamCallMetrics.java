@@ -0,0 +1,59 @@
+package com.example.authservice.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Время вызовов одной операции userservice с разбивкой по классу результата.
+// Таймеры на все исходы регистрируются заранее, запись - поиск в EnumMap и record()
+class UpstreamCallMetrics {
+
+    enum Outcome { SUCCESS, CLIENT_ERROR, SERVER_ERROR, TIMEOUT, IO_ERROR, CIRCUIT_OPEN, ERROR }
+
+    private final Map<Outcome, Timer> timers = new EnumMap<>(Outcome.class);
+
+    UpstreamCallMetrics(MeterRegistry meterRegistry, String operation) {
+        // Гистограмма агрегируется по экземплярам auth-service; верхняя граница - с запасом над таймаутом ответа
+        for (Outcome outcome : Outcome.values()) {
+            timers.put(outcome, Timer.builder("userservice.client.requests")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofSeconds(10))
+                    .register(meterRegistry));
+        }
+    }
+
+    void record(Outcome outcome, long startedAt) {
+        timers.get(outcome).record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+    }
+
+    void recordFailure(Throwable error, long startedAt) {
+        record(classify(error), startedAt);
+    }
+
+    static Outcome classify(Throwable error) {
+        if (error instanceof WebClientResponseException responseException) {
+            return responseException.getStatusCode().is4xxClientError() ? Outcome.CLIENT_ERROR : Outcome.SERVER_ERROR;
+        }
+        if (error instanceof TimeoutException) {
+            return Outcome.TIMEOUT;
+        }
+        if (error instanceof WebClientRequestException) {
+            return Outcome.IO_ERROR;
+        }
+        if (error instanceof UserServiceUnavailableException) {
+            return Outcome.CIRCUIT_OPEN;
+        }
+        return Outcome.ERROR;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.authservice.service;
+
+import com.example.authservice.dto.UserChangedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+// Сброс локального кэша пользователей по событиям из userservice.
+// У каждого узла своя consumer group, поэтому событие получают все экземпляры auth-service.
+// При назначении партиций чтение начинается не с конца топика, а с момента, после которого
+// событие ещё может касаться кэша: иначе события, пришедшие до назначения (при старте
+// или после перебалансировки из-за недоступности Kafka), терялись бы и кэш отдавал бы
+// старый пароль или роли до истечения TTL
+@Component
+public class UserEventsListener implements ConsumerSeekAware {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserEventsListener.class);
+
+    // Запас на расхождение часов userservice, брокера и этого узла; повторная инвалидация безвредна
+    private static final long REPLAY_MARGIN_MILLIS = Duration.ofMinutes(1).toMillis();
+
+    private final UserLookupCache userLookupCache;
+
+    private final ObjectMapper objectMapper;
+
+    private final long cacheTtlMillis;
+
+    private final long startedAt = System.currentTimeMillis();
+
+    public UserEventsListener(UserLookupCache userLookupCache, ObjectMapper objectMapper,
+                              @Value("${userservice.cache.ttl:60s}") Duration cacheTtl) {
+        this.userLookupCache = userLookupCache;
+        this.objectMapper = objectMapper;
+        this.cacheTtlMillis = cacheTtl.toMillis();
+    }
+
+    // Кэш пуст до старта процесса, а запись живёт не дольше TTL: более ранние события
+    // не могут касаться закэшированных пользователей, поэтому повтор ограничен
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        long replayFrom = Math.max(startedAt, System.currentTimeMillis() - cacheTtlMillis) - REPLAY_MARGIN_MILLIS;
+        callback.seekToTimestamp(assignments.keySet(), replayFrom);
+        logger.debug("Replaying user events since {} for {}", Instant.ofEpochMilli(replayFrom), assignments.keySet());
+    }
+
+    @KafkaListener(topics = "${userservice.events.topic:user-events}",
+            groupId = "#{'auth-service-' + T(java.util.UUID).randomUUID()}",
+            autoStartup = "${userservice.events.enabled:true}")
+    public void onUserChanged(String payload) {
+        UserChangedEvent event;
+        try {
+            event = objectMapper.readValue(payload, UserChangedEvent.class);
+        } catch (JsonProcessingException e) {
+            // Нечитаемое событие не должно останавливать обработку остальных
+            logger.warn("Skipping malformed user event: {}", e.getMessage());
+            return;
+        }
+
+        if (event.getEmail() != null) {
+            userLookupCache.invalidate(event.getEmail());
+        }
+        if (event.getPreviousEmail() != null) {
+            userLookupCache.invalidate(event.getPreviousEmail());
+        }
+        logger.debug("Invalidated cached user on {} event for user ID {}", event.getType(), event.getUserId());
+    }
+}
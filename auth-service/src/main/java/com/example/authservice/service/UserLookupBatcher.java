@@ -0,0 +1,135 @@
+package com.example.authservice.service;
+
+import com.example.authservice.dto.UserDto;
+import io.micrometer.context.ContextSnapshot;
+import io.micrometer.context.ContextSnapshotFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+// Собирает одновременные запросы пользователей в пачки: пачка уходит одним вызовом
+// POST /users/by-emails, когда набралось maxBatchSize email или истекло окно ожидания.
+// Вызов выполняется в контексте первого запроса пачки (трасса, MDC): иначе он уходил бы
+// с потока планировщика без traceparent. Трассы остальных запросов пачки этот вызов не видят
+public class UserLookupBatcher {
+
+    private static final ContextSnapshotFactory CONTEXT_SNAPSHOTS = ContextSnapshotFactory.builder().build();
+
+    private final int maxBatchSize;
+
+    private final long windowNanos;
+
+    private final Function<List<String>, CompletableFuture<Map<String, UserDto>>> batchLoader;
+
+    private final ScheduledExecutorService scheduler;
+
+    // ReentrantLock, а не synchronized: не пиннит carrier-поток в режиме virtual-threads
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private List<PendingLookup> pending = new ArrayList<>();
+
+    private ScheduledFuture<?> scheduledFlush;
+
+    public UserLookupBatcher(int maxBatchSize, Duration window,
+                             Function<List<String>, CompletableFuture<Map<String, UserDto>>> batchLoader) {
+        this.maxBatchSize = maxBatchSize;
+        this.windowNanos = window.toNanos();
+        this.batchLoader = batchLoader;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-lookup-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public CompletableFuture<Optional<UserDto>> submit(String email) {
+        CompletableFuture<Optional<UserDto>> result = new CompletableFuture<>();
+        List<PendingLookup> batch = null;
+
+        lock.lock();
+        try {
+            // Контекст нужен только первому запросу пачки: вызов пойдёт от его имени
+            ContextSnapshot context = pending.isEmpty() ? CONTEXT_SNAPSHOTS.captureAll() : null;
+            pending.add(new PendingLookup(email, result, context));
+            if (pending.size() >= maxBatchSize) {
+                batch = takePending();
+            } else if (pending.size() == 1) {
+                // Первый запрос в пачке открывает окно ожидания
+                scheduledFlush = scheduler.schedule(this::flush, windowNanos, TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (batch != null) {
+            dispatch(batch);
+        }
+        return result;
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+        flush();
+    }
+
+    private void flush() {
+        List<PendingLookup> batch;
+        lock.lock();
+        try {
+            batch = takePending();
+        } finally {
+            lock.unlock();
+        }
+        if (!batch.isEmpty()) {
+            dispatch(batch);
+        }
+    }
+
+    // Вызывается под lock
+    private List<PendingLookup> takePending() {
+        List<PendingLookup> batch = pending;
+        pending = new ArrayList<>();
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        return batch;
+    }
+
+    private void dispatch(List<PendingLookup> batch) {
+        List<String> emails = new ArrayList<>(new LinkedHashSet<>(batch.stream().map(PendingLookup::email).toList()));
+
+        CompletableFuture<Map<String, UserDto>> loading;
+        try (ContextSnapshot.Scope ignored = batch.get(0).context().setThreadLocals()) {
+            loading = batchLoader.apply(emails);
+        } catch (RuntimeException e) {
+            loading = CompletableFuture.failedFuture(e);
+        }
+
+        loading.whenComplete((users, error) -> {
+            for (PendingLookup lookup : batch) {
+                if (error != null) {
+                    lookup.result().completeExceptionally(error);
+                } else {
+                    // Отсутствие email в ответе означает, что пользователь не найден
+                    lookup.result().complete(Optional.ofNullable(users.get(lookup.email())));
+                }
+            }
+        });
+    }
+
+    private record PendingLookup(String email, CompletableFuture<Optional<UserDto>> result,
+                                 ContextSnapshot context) {
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.authservice.service;
+
+import com.example.authservice.dto.UserDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// Локальный read-through кэш пользователей из userservice.
+// Хранит и найденных, и ненайденных пользователей (negative caching),
+// а одновременные промахи по одному email ждут один и тот же запрос (single-flight).
+// Каждый вызывающий получает свою копию общего future: отмена одного ожидающего
+// (разрыв соединения, таймаут запроса) не затрагивает остальных и саму запись
+@Component
+public class UserLookupCache {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final boolean enabled;
+
+    private final long ttlMillis;
+
+    private final long negativeTtlMillis;
+
+    private final int maxSize;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    public UserLookupCache(@Value("${userservice.cache.enabled:true}") boolean enabled,
+                           @Value("${userservice.cache.ttl:60s}") Duration ttl,
+                           @Value("${userservice.cache.negative-ttl:5s}") Duration negativeTtl,
+                           @Value("${userservice.cache.max-size:10000}") int maxSize) {
+        this.enabled = enabled;
+        this.ttlMillis = ttl.toMillis();
+        this.negativeTtlMillis = negativeTtl.toMillis();
+        this.maxSize = maxSize;
+    }
+
+    public CompletableFuture<Optional<UserDto>> get(String email,
+                                                    Function<String, CompletableFuture<Optional<UserDto>>> loader) {
+        if (!enabled) {
+            return loader.apply(email);
+        }
+
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(email);
+        if (entry != null && !entry.isExpired(now)) {
+            hits.increment();
+            return entry.future.copy();
+        }
+
+        // Внутри compute только выбираем запись, сама загрузка идёт снаружи и не держит блокировку
+        Entry candidate = new Entry();
+        Entry current = entries.compute(email, (key, existing) ->
+                existing != null && !existing.isExpired(now) ? existing : candidate);
+        if (current != candidate) {
+            hits.increment();
+            return current.future.copy();
+        }
+
+        misses.increment();
+        evictIfFull();
+        load(email, candidate, loader);
+        return candidate.future.copy();
+    }
+
+    public void invalidate(String email) {
+        entries.remove(email);
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    private void load(String email, Entry entry,
+                      Function<String, CompletableFuture<Optional<UserDto>>> loader) {
+        CompletableFuture<Optional<UserDto>> loading;
+        try {
+            loading = loader.apply(email);
+        } catch (RuntimeException e) {
+            loading = CompletableFuture.failedFuture(e);
+        }
+
+        loading.whenComplete((user, error) -> {
+            if (error != null) {
+                // Ошибки не кэшируем: следующий запрос снова пойдёт в userservice
+                entries.remove(email, entry);
+                entry.future.completeExceptionally(error);
+                return;
+            }
+            long ttl = user.isPresent() ? ttlMillis : negativeTtlMillis;
+            entry.expiresAt = System.currentTimeMillis() + ttl;
+            entry.future.complete(user);
+        });
+    }
+
+    private void evictIfFull() {
+        if (entries.size() <= maxSize) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.isExpired(now));
+
+        // Если просроченных не хватило, вытесняем произвольные записи
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private static final class Entry {
+
+        private final CompletableFuture<Optional<UserDto>> future = new CompletableFuture<>();
+
+        // Пока идёт загрузка, запись не истекает
+        private volatile long expiresAt = Long.MAX_VALUE;
+
+        // Неуспешно завершённая запись не должна отдавать ошибку до истечения TTL
+        private boolean isExpired(long now) {
+            return expiresAt <= now || future.isCompletedExceptionally();
+        }
+    }
+}
@@ -1,57 +1,272 @@
 package com.example.authservice.service;
 
+import com.example.authservice.dto.PasswordHashUpdateRequest;
 import com.example.authservice.dto.UserDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 
 @Service
 public class UserServiceClient {
 
     private static final Logger logger = LoggerFactory.getLogger(UserServiceClient.class);
 
-    @Value("${userservice.url}")
-    private String userServiceUrl;
-
     private final WebClient webClient;
 
+    // null, если вторая реплика для хеджирования не настроена
+    private final WebClient hedgeWebClient;
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final LatencyTracker latencyTracker = new LatencyTracker();
+
+    private final Duration hedgeInitialDelay;
+
+    private final Duration hedgeMinDelay;
+
+    private final HedgeBudget hedgeBudget;
+
+    private final Counter hedgesSent;
+
+    private final Counter hedgesRejected;
+
+    // Общий предел на вызов, включая ожидание соединения из пула
+    private final Duration callDeadline;
+
+    private final UserLookupCache userLookupCache;
+
+    // null, если объединение запросов в пачки выключено
+    private final UserLookupBatcher userLookupBatcher;
+
+    private final UpstreamCallMetrics findByEmailMetrics;
+
+    private final UpstreamCallMetrics findByEmailsMetrics;
+
+    private final UpstreamCallMetrics updatePasswordMetrics;
+
     @Autowired
-    public UserServiceClient(WebClient.Builder webClientBuilder) {
-        this.webClient = webClientBuilder.build();
+    public UserServiceClient(@Qualifier("userServiceWebClient") WebClient webClient,
+                             @Qualifier("userServiceHedgeWebClient") ObjectProvider<WebClient> hedgeWebClient,
+                             @Qualifier("userServiceCircuitBreaker") CircuitBreaker circuitBreaker,
+                             UserLookupCache userLookupCache,
+                             @Value("${userservice.http.deadline:3s}") Duration callDeadline,
+                             @Value("${userservice.hedge.initial-delay:50ms}") Duration hedgeInitialDelay,
+                             @Value("${userservice.hedge.min-delay:5ms}") Duration hedgeMinDelay,
+                             @Value("${userservice.hedge.max-ratio:0.05}") double hedgeMaxRatio,
+                             @Value("${userservice.hedge.burst:10}") int hedgeBurst,
+                             @Value("${userservice.batch.enabled:true}") boolean batchEnabled,
+                             @Value("${userservice.batch.max-size:100}") int batchMaxSize,
+                             @Value("${userservice.batch.window:2ms}") Duration batchWindow,
+                             MeterRegistry meterRegistry) {
+        this.webClient = webClient;
+        this.hedgeWebClient = hedgeWebClient.getIfAvailable();
+        this.circuitBreaker = circuitBreaker;
+        this.hedgeInitialDelay = hedgeInitialDelay;
+        this.hedgeMinDelay = hedgeMinDelay;
+        this.hedgeBudget = new HedgeBudget(hedgeMaxRatio, hedgeBurst);
+        this.hedgesSent = hedgeCounter(meterRegistry, "sent");
+        this.hedgesRejected = hedgeCounter(meterRegistry, "rejected");
+        this.callDeadline = callDeadline;
+        this.userLookupCache = userLookupCache;
+        this.userLookupBatcher = batchEnabled
+                ? new UserLookupBatcher(batchMaxSize, batchWindow, this::fetchUsersByEmails)
+                : null;
+        this.findByEmailMetrics = new UpstreamCallMetrics(meterRegistry, "find_by_email");
+        this.findByEmailsMetrics = new UpstreamCallMetrics(meterRegistry, "find_by_emails");
+        this.updatePasswordMetrics = new UpstreamCallMetrics(meterRegistry, "update_password");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (userLookupBatcher != null) {
+            userLookupBatcher.shutdown();
+        }
     }
 
     public UserDto getUserByEmail(String email) {
         logger.debug("Requesting user with email: {}", email);
 
         try {
-            // Логируем URL запроса
-            String uri = userServiceUrl + "/users/by-email?email={email}";
-            logger.debug("Sending GET request to URL: {}", uri);
-
-            UserDto userDto = webClient.get()
-                    .uri(uri, email)
-                    .retrieve()
-                    .bodyToMono(UserDto.class)
-                    .block(); // Синхронный вызов
-
-            // Логируем результат
-            if (userDto != null) {
-                logger.info("Successfully fetched user with email: {}", email);
-            } else {
-                logger.warn("No user found for email: {}", email);
+            // Синхронный вызов поверх кэша: при попадании в userservice не ходим вовсе
+            Optional<UserDto> userDto = userLookupCache.get(email, this::loadUser).join();
+            return userDto.orElse(null);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Неблокирующий вариант: поток вызывающего не ждёт ответа userservice
+    public Mono<UserDto> getUserByEmailAsync(String email) {
+        logger.debug("Requesting user asynchronously with email: {}", email);
+        // Отмена Mono отменяет только копию future этого вызова, общая загрузка продолжается
+        return Mono.fromFuture(() -> userLookupCache.get(email, this::loadUser))
+                .mapNotNull(userDto -> userDto.orElse(null));
+    }
+
+    // Записывает пересчитанный хеш в userservice. Userservice заменит хеш, только если
+    // он всё ещё равен previousHash, поэтому параллельная смена пароля не будет затёрта
+    public Mono<Void> updatePasswordHash(String email, String previousHash, String newHash) {
+        String uri = "/users/by-email/password";
+        // Запись не хеджируется: дублировать её во вторую реплику незачем
+        return resilientCall(client -> client.put()
+                .uri(uri)
+                .bodyValue(new PasswordHashUpdateRequest(email, previousHash, newHash))
+                .retrieve()
+                .toBodilessEntity(), false, updatePasswordMetrics)
+                // В кэше лежит старый хеш, следующий вход должен увидеть новый
+                .doOnSuccess(response -> userLookupCache.invalidate(email))
+                .then();
+    }
+
+    // Промах кэша: либо в общую пачку, либо отдельным запросом
+    private CompletableFuture<Optional<UserDto>> loadUser(String email) {
+        return userLookupBatcher != null ? userLookupBatcher.submit(email) : fetchUserByEmail(email);
+    }
+
+    private CompletableFuture<Map<String, UserDto>> fetchUsersByEmails(List<String> emails) {
+        String uri = "/users/by-emails";
+        logger.debug("Sending POST request to URL: {} for {} emails", uri, emails.size());
+
+        return resilientCall(client -> client.post()
+                .uri(uri)
+                .bodyValue(emails)
+                .retrieve()
+                .bodyToFlux(UserDto.class)
+                .collectMap(UserDto::getEmail), true, findByEmailsMetrics)
+                .onErrorMap(e -> !(e instanceof UserServiceException), e -> {
+                    logger.error("Error occurred while calling UserService for {} emails", emails.size(), e);
+                    return new UserServiceException("Ошибка при вызове userservice", e);
+                })
+                .toFuture();
+    }
+
+    private CompletableFuture<Optional<UserDto>> fetchUserByEmail(String email) {
+        // Логируем URL запроса
+        String uri = "/users/by-email?email={email}";
+        logger.debug("Sending GET request to URL: {}", uri);
+
+        return resilientCall(client -> client.get()
+                .uri(uri, email)
+                .retrieve()
+                .bodyToMono(UserDto.class)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                // 404 — это ответ, а не сбой: не влияет на circuit breaker и не ждёт хеджа
+                .onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.just(Optional.empty())),
+                true, findByEmailMetrics)
+                .doOnNext(userDto -> {
+                    // Логируем результат
+                    if (userDto.isPresent()) {
+                        logger.info("Successfully fetched user with email: {}", email);
+                    } else {
+                        logger.warn("No user found for email: {}", email);
+                    }
+                })
+                .onErrorMap(e -> !(e instanceof UserServiceException), e -> {
+                    logger.error("Error occurred while calling UserService for email: {}", email, e);
+                    return new UserServiceException("Ошибка при вызове userservice", e);
+                })
+                .toFuture();
+    }
+
+    // Вызов userservice через circuit breaker с общим дедлайном. Чтения дополнительно
+    // хеджируются: если основная реплика не ответила за p95, тот же запрос уходит во вторую
+    // (в пределах HedgeBudget), и побеждает первый ответ
+    private <T> Mono<T> resilientCall(Function<WebClient, Mono<T>> request, boolean hedgeable,
+                                      UpstreamCallMetrics metrics) {
+        return Mono.defer(() -> {
+            long startedAt = System.nanoTime();
+            if (!circuitBreaker.tryAcquirePermission()) {
+                metrics.record(UpstreamCallMetrics.Outcome.CIRCUIT_OPEN, startedAt);
+                long retryAfter = Math.max(1, circuitBreaker.getRemainingOpenTime().toSeconds());
+                return Mono.error(new UserServiceUnavailableException(retryAfter));
+            }
+
+            // Задержка основной реплики учитывается независимо от исхода гонки: проигравший запрос
+            // отменяется, и его задержка не меньше прошедшего времени. Без этого p95 считался бы
+            // только по быстрым ответам, смещался вниз и хеджирование срабатывало бы всё чаще
+            Mono<T> primary = request.apply(webClient)
+                    .doOnNext(value -> latencyTracker.record(System.nanoTime() - startedAt))
+                    .doOnCancel(() -> latencyTracker.record(System.nanoTime() - startedAt));
+            Mono<T> call = primary;
+            if (hedgeable && hedgeWebClient != null) {
+                hedgeBudget.onCall();
+                call = Mono.firstWithValue(primary, Mono.delay(hedgeDelay()).then(Mono.defer(() -> hedge(request))))
+                        .onErrorMap(NoSuchElementException.class, UserServiceClient::primaryError);
             }
 
-            return userDto;
-        } catch (WebClientResponseException.NotFound e) {
-            logger.error("User not found with email: {}", email, e);
-            return null; // Если пользователь не найден
-        } catch (Exception e) {
-            logger.error("Error occurred while calling UserService for email: {}", email, e);
-            throw new RuntimeException("Ошибка при вызове userservice", e);
+            return call
+                    .timeout(callDeadline)
+                    .doOnSuccess(value -> {
+                        circuitBreaker.onSuccess();
+                        metrics.record(UpstreamCallMetrics.Outcome.SUCCESS, startedAt);
+                    })
+                    .doOnError(error -> {
+                        recordFailure(error);
+                        metrics.recordFailure(error, startedAt);
+                    })
+                    .doOnCancel(circuitBreaker::releasePermission);
+        });
+    }
+
+    // Исчерпанный бюджет оставляет вызов только основной реплике
+    private <T> Mono<T> hedge(Function<WebClient, Mono<T>> request) {
+        if (!hedgeBudget.tryAcquire()) {
+            hedgesRejected.increment();
+            return Mono.empty();
+        }
+        hedgesSent.increment();
+        return request.apply(hedgeWebClient);
+    }
+
+    // firstWithValue сообщает об отказе всех источников составным исключением (ошибки по порядку источников);
+    // для circuit breaker и метрик важна ошибка основной реплики, например статус её ответа
+    private static Throwable primaryError(NoSuchElementException error) {
+        List<Throwable> errors = error.getCause() == null ? List.of() : Exceptions.unwrapMultiple(error.getCause());
+        return errors.isEmpty() ? error : errors.get(0);
+    }
+
+    private Duration hedgeDelay() {
+        long p95 = latencyTracker.getP95Nanos();
+        return p95 < 0 ? hedgeInitialDelay : Duration.ofNanos(Math.max(p95, hedgeMinDelay.toNanos()));
+    }
+
+    private static Counter hedgeCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("userservice.client.hedges")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    // Ответ 4xx означает, что userservice жив: такие ошибки не открывают circuit breaker
+    private void recordFailure(Throwable error) {
+        if (error instanceof WebClientResponseException responseException
+                && responseException.getStatusCode().is4xxClientError()) {
+            circuitBreaker.onSuccess();
+        } else {
+            circuitBreaker.onFailure();
         }
     }
 }
@@ -0,0 +1,8 @@
+package com.example.authservice.service;
+
+public class UserServiceException extends RuntimeException {
+
+    public UserServiceException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
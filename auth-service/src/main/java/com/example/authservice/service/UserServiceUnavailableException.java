@@ -0,0 +1,16 @@
+package com.example.authservice.service;
+
+// Circuit breaker открыт: userservice не вызывается, клиент сразу получает 503
+public class UserServiceUnavailableException extends UserServiceException {
+
+    private final long retryAfterSeconds;
+
+    public UserServiceUnavailableException(long retryAfterSeconds) {
+        super("userservice is unavailable, circuit breaker is open", null);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
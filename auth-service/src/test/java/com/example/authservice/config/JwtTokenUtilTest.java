@@ -0,0 +1,139 @@
+package com.example.authservice.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class JwtTokenUtilTest {
+
+    private final SigningKeyManager signingKeyManager =
+            new SigningKeyManager(Duration.ofHours(24), 60_000, Duration.ofHours(1), Duration.ofDays(7),
+                    Duration.ofMinutes(1), newKeyStore());
+
+    private final JwtTokenUtil jwtTokenUtil = new JwtTokenUtil(signingKeyManager, 60_000, Duration.ofHours(1),
+            Duration.ofDays(7), new SimpleMeterRegistry(), Tracer.NOOP);
+
+    @Test
+    void rolesFromTokenBecomeAuthoritiesWithoutUserLookup() {
+        String token = jwtTokenUtil.generateToken("john@example.com", List.of("USER", "ADMIN"));
+
+        TokenClaims claims = jwtTokenUtil.validateToken(token).orElseThrow();
+
+        assertEquals("john@example.com", claims.getSubject());
+        assertEquals(List.of("USER", "ADMIN"), claims.getRoles());
+        assertEquals(List.of("ROLE_USER", "ROLE_ADMIN"),
+                claims.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+    }
+
+    @Test
+    void tokenSignedWithAnotherKeyIsRejected() {
+        SigningKeyManager otherKeys = new SigningKeyManager(Duration.ofHours(24), 60_000, Duration.ofHours(1),
+                Duration.ofDays(7), Duration.ofMinutes(1), newKeyStore());
+        String token = new JwtTokenUtil(otherKeys, 60_000, Duration.ofHours(1), Duration.ofDays(7),
+                new SimpleMeterRegistry(), Tracer.NOOP).generateToken("john@example.com", List.of("ADMIN"));
+
+        assertTrue(jwtTokenUtil.validateToken(token).isEmpty());
+    }
+
+    @Test
+    void tokensSignedBeforeRotationStayValid() {
+        String issuedBefore = jwtTokenUtil.generateToken("john@example.com", List.of("USER"));
+        String previousKeyId = signingKeyManager.getCurrent().getKeyId();
+
+        signingKeyManager.rotate(System.currentTimeMillis());
+
+        assertNotEquals(previousKeyId, signingKeyManager.getCurrent().getKeyId());
+        assertTrue(jwtTokenUtil.validateToken(issuedBefore).isPresent());
+        assertTrue(jwtTokenUtil.validateToken(
+                jwtTokenUtil.generateToken("john@example.com", List.of("USER"))).isPresent());
+    }
+
+    @Test
+    void refreshTokenSignedBeforeRotationOutlivesAccessTokenRetention() {
+        String refreshToken = jwtTokenUtil.generateRefreshToken("john@example.com", List.of("USER"), "session-1");
+        long rotatedAt = System.currentTimeMillis();
+
+        signingKeyManager.rotate(rotatedAt);
+        // Срок access-токена с допуском (2 минуты) давно прошёл, refresh-токен (час) ещё действует
+        signingKeyManager.rotateIfDue(rotatedAt + Duration.ofMinutes(30).toMillis());
+
+        TokenClaims claims = jwtTokenUtil.validateRefreshToken(refreshToken).orElseThrow();
+        assertEquals("session-1", claims.getSessionId());
+    }
+
+    @Test
+    void refreshTokenIsNotAcceptedAsAccessToken() {
+        String refreshToken = jwtTokenUtil.generateRefreshToken("john@example.com", List.of("USER"), "session-1");
+
+        assertTrue(jwtTokenUtil.validateToken(refreshToken).isEmpty());
+        TokenClaims claims = jwtTokenUtil.validateRefreshToken(refreshToken).orElseThrow();
+        assertEquals("session-1", claims.getSessionId());
+        assertNotNull(claims.getTokenId());
+        assertTrue(jwtTokenUtil.validateRefreshToken(
+                jwtTokenUtil.generateAccessToken("john@example.com", List.of("USER"), "session-1")).isEmpty());
+    }
+
+    @Test
+    void refreshCannotExtendSessionPastMaxLifetime() {
+        long now = System.currentTimeMillis();
+        // До конца сессии полчаса, refresh TTL — час, но токен не переживёт начало сессии + 7 дней
+        long startedAt = now - Duration.ofDays(7).toMillis() + Duration.ofMinutes(30).toMillis();
+
+        TokenClaims claims = jwtTokenUtil.validateRefreshToken(
+                jwtTokenUtil.generateRefreshToken("john@example.com", List.of("USER"), "session-1", startedAt))
+                .orElseThrow();
+
+        assertTrue(claims.getExpiration().getTime() <= startedAt + Duration.ofDays(7).toMillis());
+        assertEquals(startedAt / 1000, claims.getSessionStartedAt() / 1000);
+
+        // Сессия старше максимального срока: выпущенный токен сразу просрочен
+        long expiredSession = now - Duration.ofDays(8).toMillis();
+        assertTrue(jwtTokenUtil.validateRefreshToken(
+                jwtTokenUtil.generateRefreshToken("john@example.com", List.of("USER"), "session-2", expiredSession))
+                .isEmpty());
+    }
+
+    @Test
+    void signSpanIsEndedWithErrorWhenSigningFails() {
+        SigningKeyManager brokenKeys = mock(SigningKeyManager.class);
+        IllegalStateException failure = new IllegalStateException("No active JWT signing key");
+        when(brokenKeys.getCurrent()).thenThrow(failure);
+        Span span = mock(Span.class);
+        when(span.name(anyString())).thenReturn(span);
+        when(span.start()).thenReturn(span);
+        when(span.tag(anyString(), anyString())).thenReturn(span);
+        Tracer tracer = mock(Tracer.class);
+        when(tracer.currentSpan()).thenReturn(span);
+        when(tracer.nextSpan()).thenReturn(span);
+        JwtTokenUtil failingUtil = new JwtTokenUtil(brokenKeys, 60_000, Duration.ofHours(1), Duration.ofDays(7),
+                new SimpleMeterRegistry(), tracer);
+
+        assertSame(failure, assertThrows(IllegalStateException.class,
+                () -> failingUtil.generateToken("john@example.com", List.of("USER"))));
+
+        // Ошибка подписи попадает в span, и он закрывается, а не остаётся открытым
+        verify(span).error(failure);
+        verify(span).end();
+    }
+
+    private static Path newKeyStore() {
+        try {
+            return Files.createTempDirectory("signing-keys");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.authservice.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SigningKeyManagerTest {
+
+    @TempDir
+    Path keyStore;
+
+    @Test
+    void instancesSharingKeyStoreAcceptEachOthersTokens() {
+        SigningKeyManager first = manager();
+        String token = jwtTokenUtil(first).generateAccessToken("john@example.com", List.of("USER"), "session-1");
+
+        // Второй экземпляр или тот же после рестарта: ключи берутся из каталога, а не создаются заново
+        SigningKeyManager second = manager();
+
+        assertEquals(first.getCurrent().getKeyId(), second.getCurrent().getKeyId());
+        assertEquals(keyIds(first), keyIds(second));
+        assertTrue(jwtTokenUtil(second).validateToken(token).isPresent());
+    }
+
+    @Test
+    void rotationByOneInstanceIsPickedUpByAnother() {
+        SigningKeyManager first = manager();
+        SigningKeyManager second = manager();
+        String issuedBefore = jwtTokenUtil(second).generateAccessToken("john@example.com", List.of("USER"), "session-1");
+        String upcomingKeyId = keyIds(first).stream()
+                .filter(keyId -> !keyId.equals(first.getCurrent().getKeyId()))
+                .findFirst().orElseThrow();
+
+        long now = System.currentTimeMillis();
+        first.rotate(now);
+        second.rotateIfDue(now);
+
+        // Вводится ключ, опубликованный заранее; второй экземпляр не ротирует повторно
+        assertEquals(upcomingKeyId, first.getCurrent().getKeyId());
+        assertEquals(upcomingKeyId, second.getCurrent().getKeyId());
+        assertEquals(keyIds(first), keyIds(second));
+        assertEquals(3, keyIds(second).size());
+        assertTrue(jwtTokenUtil(first).validateToken(issuedBefore).isPresent());
+    }
+
+    @Test
+    void expiredRetiredKeyIsRemovedFromKeyStore() throws Exception {
+        SigningKeyManager manager = manager();
+        String retiredKeyId = manager.getCurrent().getKeyId();
+        long now = System.currentTimeMillis();
+        manager.rotate(now);
+
+        // Срок хранения - наибольший из сроков токенов (сессия, 7 дней) плюс допуск
+        manager.rotateIfDue(now + Duration.ofDays(7).plusMinutes(2).toMillis());
+
+        assertNull(manager.getVerificationKey(retiredKeyId));
+        assertFalse(Files.exists(keyStore.resolve(retiredKeyId + ".key")));
+        assertNull(manager().getVerificationKey(retiredKeyId));
+    }
+
+    private SigningKeyManager manager() {
+        return new SigningKeyManager(Duration.ofHours(24), 900_000, Duration.ofHours(24), Duration.ofDays(7),
+                Duration.ofMinutes(1), keyStore);
+    }
+
+    private static JwtTokenUtil jwtTokenUtil(SigningKeyManager signingKeyManager) {
+        return new JwtTokenUtil(signingKeyManager, 900_000, Duration.ofHours(24), Duration.ofDays(7),
+                new SimpleMeterRegistry(), Tracer.NOOP);
+    }
+
+    private static Set<String> keyIds(SigningKeyManager signingKeyManager) {
+        return signingKeyManager.getPublishedKeys().stream().map(SigningKey::getKeyId).collect(Collectors.toSet());
+    }
+}
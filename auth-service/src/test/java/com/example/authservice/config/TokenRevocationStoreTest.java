@@ -0,0 +1,58 @@
+package com.example.authservice.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenRevocationStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void revocationSurvivesRestart() {
+        Path log = tempDir.resolve("revocations.log");
+        long expiresAt = System.currentTimeMillis() + 60_000;
+
+        TokenRevocationStore store = new TokenRevocationStore(log);
+        assertTrue(store.revoke("session-1", expiresAt));
+        assertFalse(store.revoke("session-1", expiresAt));
+        assertTrue(store.isRevoked("session-1"));
+        assertFalse(store.isRevoked("session-2"));
+        store.close();
+
+        TokenRevocationStore restarted = new TokenRevocationStore(log);
+        assertTrue(restarted.isRevoked("session-1"));
+        assertFalse(restarted.isRevoked("session-2"));
+    }
+
+    @Test
+    void compactionDropsExpiredEntries() throws Exception {
+        Path log = tempDir.resolve("revocations.log");
+        Files.writeString(log, "expired " + (System.currentTimeMillis() - 1) + "\n");
+
+        TokenRevocationStore store = new TokenRevocationStore(log);
+        store.revoke("active", System.currentTimeMillis() + 60_000);
+        store.compact();
+
+        assertEquals(1, store.size());
+        assertFalse(store.isRevoked("expired"));
+        assertEquals(1, Files.readAllLines(log).size());
+        store.close();
+    }
+
+    @Test
+    void secondInstanceCannotShareTheLog() {
+        Path log = tempDir.resolve("revocations.log");
+        TokenRevocationStore store = new TokenRevocationStore(log);
+
+        assertThrows(IllegalStateException.class, () -> new TokenRevocationStore(log));
+
+        store.close();
+        new TokenRevocationStore(log).close();
+    }
+}
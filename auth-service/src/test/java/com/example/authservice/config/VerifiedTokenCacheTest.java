@@ -0,0 +1,111 @@
+package com.example.authservice.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+
+    private static TokenClaims claimsExpiringIn(long millis) {
+        return new TokenClaims("john@example.com", new Date(System.currentTimeMillis() + millis), List.of("USER"));
+    }
+
+    @Test
+    void repeatedTokenIsServedFromCache() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 10);
+        TokenClaims claims = claimsExpiringIn(60_000);
+
+        assertNull(cache.get("token-1"));
+        cache.put("token-1", claims);
+
+        assertSame(claims, cache.get("token-1"));
+        assertNull(cache.get("token-2"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    void entryLivesOnlyUntilTokenExpiration() throws InterruptedException {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 10);
+        cache.put("short-lived", claimsExpiringIn(100));
+        assertNotNull(cache.get("short-lived"));
+
+        Thread.sleep(150);
+
+        assertNull(cache.get("short-lived"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void expiredOrUnboundedClaimsAreNotCached() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 10);
+
+        cache.put("expired", claimsExpiringIn(-1));
+        cache.put("no-exp", new TokenClaims("john@example.com", null, List.of("USER")));
+
+        assertEquals(0, cache.size());
+        assertNull(cache.get("no-exp"));
+    }
+
+    @Test
+    void fullCacheEvictsOldestEntryAndAdmitsNewToken() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 2);
+        cache.put("first", claimsExpiringIn(60_000));
+        cache.put("second", claimsExpiringIn(60_000));
+
+        // Переполнение не отклоняет новый токен и не обходит кэш: вытесняется самая старая запись
+        cache.put("third", claimsExpiringIn(60_000));
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertNull(cache.get("first"));
+        assertNotNull(cache.get("second"));
+        assertNotNull(cache.get("third"));
+    }
+
+    @Test
+    void backgroundSweepRemovesExpiredEntries() throws InterruptedException {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 10);
+        cache.put("short-lived", claimsExpiringIn(100));
+        cache.put("long-lived", claimsExpiringIn(60_000));
+
+        Thread.sleep(150);
+        cache.evictExpired();
+
+        assertEquals(1, cache.size());
+        assertNotNull(cache.get("long-lived"));
+    }
+
+    @Test
+    void verifierRunsOnlyOnMiss() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 10);
+        AtomicInteger verifications = new AtomicInteger();
+        Function<String, TokenClaims> verifier = token -> {
+            verifications.incrementAndGet();
+            return claimsExpiringIn(60_000);
+        };
+
+        TokenClaims first = cache.get("token-1", verifier);
+        TokenClaims second = cache.get("token-1", verifier);
+
+        assertSame(first, second);
+        assertEquals(1, verifications.get());
+        assertNull(cache.get("invalid", token -> null));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void disabledCacheStoresNothing() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(false, 10);
+        cache.put("token-1", claimsExpiringIn(60_000));
+
+        assertNull(cache.get("token-1"));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getMissCount());
+    }
+}
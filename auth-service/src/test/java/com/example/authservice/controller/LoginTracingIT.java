@@ -0,0 +1,154 @@
+package com.example.authservice.controller;
+
+import com.example.authservice.dto.UserDto;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Вход с выборкой 100%: span пишутся FileSpanExporter, userservice заменён HTTP-сервером JDK,
+// который запоминает заголовок traceparent. Проверяется, что трасса входа уходит в userservice
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "management.tracing.sampling.probability=1.0",
+                "auth.password-hashing.bcrypt-strength=4",
+                "auth.rate-limit.enabled=false",
+                "userservice.events.enabled=false",
+                "jwt.revocation.broadcast-enabled=false",
+                "spring.kafka.admin.auto-create=false"
+        })
+@AutoConfigureObservability
+class LoginTracingIT {
+
+    private static final String EMAIL = "john@example.com";
+
+    private static final String PASSWORD = "Tracing-Pass1";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final ConcurrentLinkedQueue<String> traceparents = new ConcurrentLinkedQueue<>();
+
+    private static final Path workDir;
+
+    private static final HttpServer userservice;
+
+    static {
+        try {
+            workDir = Files.createTempDirectory("login-tracing");
+            byte[] user = OBJECT_MAPPER.writeValueAsBytes(
+                    new UserDto(EMAIL, new BCryptPasswordEncoder(4).encode(PASSWORD), List.of("USER")));
+            userservice = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            byte[] users = OBJECT_MAPPER.writeValueAsBytes(List.of(OBJECT_MAPPER.readTree(user)));
+            userservice.createContext("/users/by-emails", exchange -> respond(exchange, users));
+            userservice.createContext("/users/by-email", exchange -> respond(exchange, user));
+            userservice.start();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("userservice.url", () -> "http://127.0.0.1:" + userservice.getAddress().getPort());
+        registry.add("tracing.export.file.path", () -> workDir.resolve("spans.jsonl").toString());
+        registry.add("jwt.revocation.log-path", () -> workDir.resolve("revocations.log").toString());
+        registry.add("jwt.signing.key-store-path", () -> workDir.resolve("signing-keys").toString());
+    }
+
+    @AfterAll
+    static void stopUserservice() {
+        userservice.stop(0);
+    }
+
+    @Test
+    void loginTraceIsPropagatedToUserservice() throws Exception {
+        ResponseEntity<String> response = restTemplate.postForEntity("/auth/login",
+                Map.of("username", EMAIL, "password", PASSWORD), String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        // traceparent: 00-<traceId>-<spanId вызывающего>-<флаги>
+        String traceparent = traceparents.poll();
+        assertNotNull(traceparent, "userservice was called without a traceparent header");
+        String[] parts = traceparent.split("-");
+        assertEquals("01", parts[3], "sampled flag must be propagated");
+        String traceId = parts[1];
+        String callerSpanId = parts[2];
+
+        List<JsonNode> trace = awaitSpans(traceId, callerSpanId);
+
+        // Span из traceparent - вызов WebClient внутри обработки входа, а не корень отдельной трассы
+        JsonNode client = trace.stream()
+                .filter(span -> span.path("spanId").asText().equals(callerSpanId))
+                .findFirst().orElseThrow();
+        assertEquals("CLIENT", client.path("kind").asText());
+        assertEquals("auth-service", client.path("service").asText());
+        String parentSpanId = client.path("parentSpanId").asText();
+        assertTrue(trace.stream().anyMatch(span -> span.path("spanId").asText().equals(parentSpanId)),
+                "userservice call must be a child of the login request");
+    }
+
+    // BatchSpanProcessor выгружает span с задержкой, поэтому файл читается,
+    // пока в трассе не появятся span вызова и серверный span входа
+    private List<JsonNode> awaitSpans(String traceId, String spanId) throws Exception {
+        Path spans = workDir.resolve("spans.jsonl");
+        long deadline = System.currentTimeMillis() + 20_000;
+        while (System.currentTimeMillis() < deadline) {
+            if (Files.exists(spans)) {
+                List<JsonNode> trace = new ArrayList<>();
+                for (String line : Files.readAllLines(spans)) {
+                    JsonNode span = OBJECT_MAPPER.readTree(line);
+                    if (span.path("traceId").asText().equals(traceId)) {
+                        trace.add(span);
+                    }
+                }
+                if (trace.stream().anyMatch(span -> span.path("spanId").asText().equals(spanId))
+                        && trace.stream().anyMatch(span -> "SERVER".equals(span.path("kind").asText()))) {
+                    return trace;
+                }
+            }
+            Thread.sleep(200);
+        }
+        throw new AssertionError("Span " + spanId + " and the login span of trace " + traceId + " were not exported");
+    }
+
+    private static void respond(HttpExchange exchange, byte[] body) throws IOException {
+        try (exchange) {
+            String traceparent = exchange.getRequestHeaders().getFirst("traceparent");
+            if (traceparent != null) {
+                traceparents.add(traceparent);
+            }
+            exchange.getRequestBody().readAllBytes();
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
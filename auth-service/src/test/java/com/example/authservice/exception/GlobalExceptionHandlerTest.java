@@ -0,0 +1,55 @@
+package com.example.authservice.exception;
+
+import com.example.common.exception.PasswordHashingRejectedException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class GlobalExceptionHandlerTest {
+
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new HashingController())
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .build();
+
+    @Test
+    void rejectedHashingIsAnsweredWith503AndRetryAfter() throws Exception {
+        mockMvc.perform(post("/sync"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"));
+    }
+
+    @Test
+    void rejectionFromAsyncLoginIsMappedTheSameWay() throws Exception {
+        // /auth/login возвращает Mono: ошибка приходит после асинхронной обработки
+        MvcResult result = mockMvc.perform(post("/async"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"));
+    }
+
+    @RestController
+    static class HashingController {
+
+        @PostMapping("/sync")
+        String sync() {
+            throw new PasswordHashingRejectedException(2);
+        }
+
+        @PostMapping("/async")
+        Mono<String> async() {
+            return Mono.error(new PasswordHashingRejectedException(2));
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.authservice.service;
+
+import com.example.authservice.config.JwtTokenUtil;
+import com.example.authservice.config.TokenClaims;
+import com.example.authservice.dto.JwtResponse;
+import com.example.authservice.dto.UserDto;
+import com.example.common.config.BoundedPasswordEncoder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.BadCredentialsException;
+import reactor.core.publisher.Mono;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuthServiceTest {
+
+    private static final long SESSION_START = 1_700_000_000_000L;
+
+    @Mock
+    private UserServiceClient userServiceClient;
+
+    @Mock
+    private BoundedPasswordEncoder passwordEncoder;
+
+    @Mock
+    private JwtTokenUtil jwtTokenUtil;
+
+    @Mock
+    private TokenRevocationService revocationService;
+
+    @InjectMocks
+    private AuthService authService;
+
+    @Test
+    public void testLoginFetchesUserOnceAndHashesOnce() {
+        UserDto user = new UserDto("john@example.com", "encodedPassword123", List.of("USER"));
+        when(userServiceClient.getUserByEmailAsync("john@example.com")).thenReturn(Mono.just(user));
+        when(passwordEncoder.matchesAsync("password123", "encodedPassword123"))
+                .thenReturn(CompletableFuture.completedFuture(true));
+        when(jwtTokenUtil.generateAccessToken(eq("john@example.com"), eq(List.of("USER")), anyString(), anyLong()))
+                .thenReturn("token");
+        when(jwtTokenUtil.generateRefreshToken(eq("john@example.com"), eq(List.of("USER")), anyString(), anyLong()))
+                .thenReturn("refresh");
+
+        JwtResponse tokens = authService.login("john@example.com", "password123").block();
+
+        assertEquals("token", tokens.getToken());
+        assertEquals("refresh", tokens.getRefreshToken());
+        // Ровно один запрос в userservice и ровно одна проверка BCrypt на вход
+        verify(userServiceClient, times(1)).getUserByEmailAsync(any());
+        verify(userServiceClient, never()).getUserByEmail(any());
+        verify(passwordEncoder, times(1)).matchesAsync(any(), any());
+        verify(passwordEncoder, never()).matches(any(), any());
+    }
+
+    @Test
+    public void testLoginRehashesOutdatedPassword() {
+        UserDto user = new UserDto("john@example.com", "oldCostHash", List.of("USER"));
+        when(userServiceClient.getUserByEmailAsync("john@example.com")).thenReturn(Mono.just(user));
+        when(passwordEncoder.matchesAsync("password123", "oldCostHash"))
+                .thenReturn(CompletableFuture.completedFuture(true));
+        when(passwordEncoder.upgradeEncoding("oldCostHash")).thenReturn(true);
+        when(passwordEncoder.encodeAsync("password123"))
+                .thenReturn(CompletableFuture.completedFuture("newCostHash"));
+        when(userServiceClient.updatePasswordHash("john@example.com", "oldCostHash", "newCostHash"))
+                .thenReturn(Mono.empty());
+        when(jwtTokenUtil.generateAccessToken(eq("john@example.com"), eq(List.of("USER")), anyString(), anyLong()))
+                .thenReturn("token");
+        when(jwtTokenUtil.generateRefreshToken(eq("john@example.com"), eq(List.of("USER")), anyString(), anyLong()))
+                .thenReturn("refresh");
+
+        JwtResponse tokens = authService.login("john@example.com", "password123").block();
+
+        assertEquals("token", tokens.getToken());
+        assertEquals("refresh", tokens.getRefreshToken());
+        // Пересчёт с новым cost записывается в userservice, передавая старый хеш для compare-and-set
+        verify(passwordEncoder, times(1)).encodeAsync("password123");
+        verify(userServiceClient, times(1)).updatePasswordHash("john@example.com", "oldCostHash", "newCostHash");
+    }
+
+    @Test
+    public void testLoginWithWrongPasswordHashesOnce() {
+        UserDto user = new UserDto("john@example.com", "encodedPassword123", List.of("USER"));
+        when(userServiceClient.getUserByEmailAsync("john@example.com")).thenReturn(Mono.just(user));
+        when(passwordEncoder.matchesAsync("wrong", "encodedPassword123"))
+                .thenReturn(CompletableFuture.completedFuture(false));
+
+        Mono<JwtResponse> login = authService.login("john@example.com", "wrong");
+
+        assertThrows(BadCredentialsException.class, login::block);
+        verify(userServiceClient, times(1)).getUserByEmailAsync(any());
+        verify(passwordEncoder, times(1)).matchesAsync(any(), any());
+        verify(jwtTokenUtil, never()).generateAccessToken(any(), any(), any(), anyLong());
+    }
+
+    @Test
+    public void testLoginUnknownUserSkipsHashing() {
+        when(userServiceClient.getUserByEmailAsync("missing@example.com")).thenReturn(Mono.empty());
+
+        Mono<JwtResponse> login = authService.login("missing@example.com", "password123");
+
+        assertThrows(BadCredentialsException.class, login::block);
+        verify(userServiceClient, times(1)).getUserByEmailAsync(any());
+        verifyNoInteractions(passwordEncoder);
+    }
+
+    @Test
+    public void testRefreshReReadsRolesWithoutHashing() {
+        TokenClaims claims = refreshClaims();
+        UserDto promoted = new UserDto("john@example.com", "encodedPassword123", List.of("USER", "ADMIN"));
+        when(jwtTokenUtil.validateRefreshToken("refresh-1")).thenReturn(Optional.of(claims));
+        when(userServiceClient.getUserByEmailAsync("john@example.com")).thenReturn(Mono.just(promoted));
+        when(revocationService.consumeRefreshToken(eq("jti-1"), anyLong())).thenReturn(true);
+        when(jwtTokenUtil.generateAccessToken("john@example.com", List.of("USER", "ADMIN"), "sid-1", SESSION_START))
+                .thenReturn("token");
+        when(jwtTokenUtil.generateRefreshToken("john@example.com", List.of("USER", "ADMIN"), "sid-1", SESSION_START))
+                .thenReturn("refresh-2");
+
+        JwtResponse tokens = authService.refresh("refresh-1").block();
+
+        // Роли берутся из userservice, а не копируются из старого токена; начало сессии сохраняется
+        assertEquals("token", tokens.getToken());
+        assertEquals("refresh-2", tokens.getRefreshToken());
+        verifyNoInteractions(passwordEncoder);
+    }
+
+    @Test
+    public void testRefreshTokenReuseRevokesSession() {
+        when(jwtTokenUtil.validateRefreshToken("refresh-1")).thenReturn(Optional.of(refreshClaims()));
+        when(userServiceClient.getUserByEmailAsync("john@example.com"))
+                .thenReturn(Mono.just(new UserDto("john@example.com", "encodedPassword123", List.of("USER"))));
+        when(revocationService.consumeRefreshToken(eq("jti-1"), anyLong())).thenReturn(false);
+
+        Mono<JwtResponse> refresh = authService.refresh("refresh-1");
+
+        assertThrows(BadCredentialsException.class, refresh::block);
+        verify(revocationService, times(1)).revokeSession(eq("sid-1"), anyLong());
+        verify(jwtTokenUtil, never()).generateAccessToken(any(), any(), any(), anyLong());
+    }
+
+    @Test
+    public void testRefreshForDeletedUserRevokesSession() {
+        when(jwtTokenUtil.validateRefreshToken("refresh-1")).thenReturn(Optional.of(refreshClaims()));
+        when(userServiceClient.getUserByEmailAsync("john@example.com")).thenReturn(Mono.empty());
+
+        Mono<JwtResponse> refresh = authService.refresh("refresh-1");
+
+        assertThrows(BadCredentialsException.class, refresh::block);
+        verify(revocationService, times(1)).revokeSession(eq("sid-1"), anyLong());
+        verify(revocationService, never()).consumeRefreshToken(any(), anyLong());
+        verify(jwtTokenUtil, never()).generateAccessToken(any(), any(), any(), anyLong());
+    }
+
+    private TokenClaims refreshClaims() {
+        return new TokenClaims("john@example.com", new Date(System.currentTimeMillis() + 60_000), List.of("USER"),
+                "jti-1", "sid-1", JwtTokenUtil.REFRESH_TOKEN, SESSION_START);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.authservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    @Test
+    public void testOpensAfterFailureRateAndFailsFast() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(0.5, 4, Duration.ofMinutes(1), Duration.ofMinutes(1), 1);
+
+        circuitBreaker.onSuccess();
+        circuitBreaker.onFailure();
+        circuitBreaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        // 2 ошибки из 4 вызовов — порог 50% достигнут
+        circuitBreaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+        assertTrue(circuitBreaker.getRemainingOpenTime().compareTo(Duration.ZERO) > 0);
+    }
+
+    @Test
+    public void testHalfOpenProbesCloseOrReopen() throws InterruptedException {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(0.5, 1, Duration.ofMinutes(1), Duration.ofMillis(10), 2);
+
+        circuitBreaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        Thread.sleep(20);
+
+        // После openDuration пропускаются только два пробных вызова
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+
+        circuitBreaker.onSuccess();
+        circuitBreaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        circuitBreaker.onFailure();
+        Thread.sleep(20);
+        assertTrue(circuitBreaker.tryAcquirePermission());
+
+        // Ошибка пробного вызова снова открывает circuit breaker
+        circuitBreaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+}
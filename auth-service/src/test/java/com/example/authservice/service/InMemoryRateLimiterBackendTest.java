@@ -0,0 +1,40 @@
+package com.example.authservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryRateLimiterBackendTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final InMemoryRateLimiterBackend backend = new InMemoryRateLimiterBackend();
+
+    @Test
+    void burstIsAllowedThenRejectedUntilRefill() {
+        long now = 1_000 * SECOND;
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, backend.tryAcquire("ip:10.0.0.1", 3, SECOND, now));
+        }
+
+        assertEquals(1000, backend.tryAcquire("ip:10.0.0.1", 3, SECOND, now));
+        // Другие ключи не затронуты
+        assertEquals(0, backend.tryAcquire("ip:10.0.0.2", 3, SECOND, now));
+        // Через интервал восстанавливается ровно один токен
+        assertEquals(0, backend.tryAcquire("ip:10.0.0.1", 3, SECOND, now + SECOND));
+        assertTrue(backend.tryAcquire("ip:10.0.0.1", 3, SECOND, now + SECOND) > 0);
+    }
+
+    @Test
+    void refilledBucketsAreEvicted() {
+        long now = 1_000 * SECOND;
+        backend.tryAcquire("email:john@example.com", 5, SECOND, now);
+        backend.tryAcquire("email:jane@example.com", 5, SECOND, now + 10 * SECOND);
+
+        backend.evictExpired(now + 5 * SECOND);
+
+        assertEquals(1, backend.size());
+    }
+}
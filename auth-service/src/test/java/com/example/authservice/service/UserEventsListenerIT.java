@@ -0,0 +1,74 @@
+package com.example.authservice.service;
+
+import com.example.authservice.dto.UserDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Сброс кэша по событиям из встроенного брокера Kafka. Слушатель запускается вручную уже после
+// отправки события, со смещением по умолчанию (latest): так воспроизводится событие, пришедшее
+// при старте узла до назначения партиций, - оно не должно потеряться
+@SpringBootTest(classes = {UserEventsListener.class, UserLookupCache.class,
+        KafkaAutoConfiguration.class, JacksonAutoConfiguration.class},
+        properties = {
+                "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+                "userservice.events.enabled=false",
+                "userservice.cache.ttl=10m"
+        })
+@EmbeddedKafka(partitions = 1, topics = "user-events")
+class UserEventsListenerIT {
+
+    @Autowired
+    private UserLookupCache userLookupCache;
+
+    @Autowired
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    @Autowired
+    private KafkaListenerEndpointRegistry listenerRegistry;
+
+    @Test
+    void userChangeEventInvalidatesOldAndNewEmail() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        cache("old@example.com", loads);
+        cache("new@example.com", loads);
+        cache("other@example.com", loads);
+        assertEquals(3, userLookupCache.size());
+
+        kafkaTemplate.send("user-events", "1",
+                "{\"type\":\"USER_UPDATED\",\"userId\":1,\"email\":\"new@example.com\","
+                        + "\"previousEmail\":\"old@example.com\",\"occurredAt\":0}").get();
+        listenerRegistry.getListenerContainers().forEach(container -> container.start());
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (userLookupCache.size() > 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        // Остался только пользователь, которого событие не касается
+        assertEquals(1, userLookupCache.size());
+        cache("other@example.com", loads);
+        assertEquals(3, loads.get());
+        cache("new@example.com", loads);
+        assertEquals(4, loads.get());
+    }
+
+    private void cache(String email, AtomicInteger loads) {
+        userLookupCache.get(email, key -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture(Optional.of(new UserDto(key, "hash", List.of("USER"))));
+        }).join();
+    }
+}
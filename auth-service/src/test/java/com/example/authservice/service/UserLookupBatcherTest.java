@@ -0,0 +1,74 @@
+package com.example.authservice.service;
+
+import com.example.authservice.dto.UserDto;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserLookupBatcherTest {
+
+    @Test
+    public void testConcurrentLookupsAreSentAsOneBatch() {
+        List<List<String>> calls = new CopyOnWriteArrayList<>();
+        UserLookupBatcher batcher = new UserLookupBatcher(10, Duration.ofMillis(50), emails -> {
+            calls.add(emails);
+            return CompletableFuture.completedFuture(Map.of(
+                    "john@example.com", new UserDto("john@example.com", "hash", List.of("USER"))));
+        });
+
+        CompletableFuture<Optional<UserDto>> john = batcher.submit("john@example.com");
+        CompletableFuture<Optional<UserDto>> johnAgain = batcher.submit("john@example.com");
+        CompletableFuture<Optional<UserDto>> missing = batcher.submit("missing@example.com");
+
+        // Все три запроса ушли одним вызовом, повторяющийся email отправлен один раз
+        assertTrue(john.join().isPresent());
+        assertTrue(johnAgain.join().isPresent());
+        assertTrue(missing.join().isEmpty());
+        assertEquals(1, calls.size());
+        assertEquals(List.of("john@example.com", "missing@example.com"), calls.get(0));
+
+        batcher.shutdown();
+    }
+
+    @Test
+    public void testFullBatchIsSentWithoutWaitingForWindow() {
+        List<List<String>> calls = new CopyOnWriteArrayList<>();
+        UserLookupBatcher batcher = new UserLookupBatcher(3, Duration.ofHours(1), emails -> {
+            calls.add(emails);
+            return CompletableFuture.completedFuture(Map.of());
+        });
+
+        List<CompletableFuture<Optional<UserDto>>> results = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            results.add(batcher.submit("user" + i + "@example.com"));
+        }
+
+        // Окно в час не дождались бы: пачки отправлены по достижении размера
+        results.forEach(result -> assertTrue(result.join().isEmpty()));
+        assertEquals(2, calls.size());
+
+        batcher.shutdown();
+    }
+
+    @Test
+    public void testBatchFailureFailsEveryLookup() {
+        UserLookupBatcher batcher = new UserLookupBatcher(2, Duration.ofMillis(10), emails ->
+                CompletableFuture.failedFuture(new UserServiceException("userservice is down", null)));
+
+        CompletableFuture<Optional<UserDto>> first = batcher.submit("a@example.com");
+        CompletableFuture<Optional<UserDto>> second = batcher.submit("b@example.com");
+
+        assertThrows(Exception.class, first::join);
+        assertThrows(Exception.class, second::join);
+
+        batcher.shutdown();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.authservice.service;
+
+import com.example.authservice.dto.UserDto;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserLookupCacheTest {
+
+    private static final UserDto JOHN = new UserDto("john@example.com", "hash", List.of("USER"));
+
+    private final UserLookupCache cache =
+            new UserLookupCache(true, Duration.ofMinutes(1), Duration.ofSeconds(5), 100);
+
+    @Test
+    public void testCancelledWaiterDoesNotCancelSharedLookup() {
+        CompletableFuture<Optional<UserDto>> upstream = new CompletableFuture<>();
+        AtomicInteger loads = new AtomicInteger();
+
+        // Первый ожидающий уходит (разрыв соединения), второй продолжает ждать тот же запрос
+        Disposable cancelled = Mono.fromFuture(() -> cache.get("john@example.com", email -> {
+            loads.incrementAndGet();
+            return upstream;
+        })).subscribe();
+        CompletableFuture<Optional<UserDto>> waiter = cache.get("john@example.com", email -> {
+            loads.incrementAndGet();
+            return upstream;
+        });
+        cancelled.dispose();
+
+        assertFalse(upstream.isCancelled());
+        upstream.complete(Optional.of(JOHN));
+
+        assertEquals(Optional.of(JOHN), waiter.join());
+        assertEquals(1, loads.get());
+        // Запись осталась в кэше и отдаётся без нового запроса
+        assertEquals(Optional.of(JOHN), cache.get("john@example.com", email -> {
+            throw new AssertionError("Cached user must not be reloaded");
+        }).join());
+    }
+
+    @Test
+    public void testFailedOrCancelledLookupIsNotCached() {
+        CompletableFuture<Optional<UserDto>> cancelledLoad = new CompletableFuture<>();
+        CompletableFuture<Optional<UserDto>> waiter = cache.get("john@example.com", email -> cancelledLoad);
+
+        cancelledLoad.cancel(true);
+
+        assertTrue(waiter.isCompletedExceptionally());
+        assertEquals(0, cache.size());
+        assertEquals(Optional.of(JOHN),
+                cache.get("john@example.com", email -> CompletableFuture.completedFuture(Optional.of(JOHN))).join());
+    }
+
+    @Test
+    public void testCallerCannotCompleteSharedEntry() {
+        CompletableFuture<Optional<UserDto>> upstream = new CompletableFuture<>();
+        CompletableFuture<Optional<UserDto>> first = cache.get("john@example.com", email -> upstream);
+        CompletableFuture<Optional<UserDto>> second = cache.get("john@example.com", email -> upstream);
+
+        first.cancel(true);
+        upstream.complete(Optional.of(JOHN));
+
+        assertTrue(first.isCancelled());
+        assertEquals(Optional.of(JOHN), second.join());
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.authservice.service;
+
+import com.example.authservice.dto.UserDto;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Основная реплика userservice отвечает с задержкой, вторая - сразу
+class UserServiceClientHedgingTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final AtomicInteger primaryRequests = new AtomicInteger();
+
+    private final AtomicInteger hedgeRequests = new AtomicInteger();
+
+    private HttpServer primary;
+
+    private HttpServer hedge;
+
+    @AfterEach
+    void stopStubs() {
+        primary.stop(0);
+        hedge.stop(0);
+    }
+
+    @Test
+    public void testSlowPrimaryIsHedged() throws IOException {
+        UserServiceClient client = client(Duration.ofMillis(500), 0.05, 10);
+
+        UserDto user = client.getUserByEmail("john@example.com");
+
+        // Ответила вторая реплика, медленный основной запрос отменён
+        assertEquals("hedge", user.getPassword());
+        assertEquals(1, hedgeRequests.get());
+        assertEquals(1.0, meterRegistry.get("userservice.client.hedges").tag("result", "sent").counter().count());
+    }
+
+    @Test
+    public void testHedgesAreCappedByBudget() throws IOException {
+        // Запас на один дубль и ещё по одному на каждые 10 вызовов
+        UserServiceClient client = client(Duration.ofMillis(100), 0.1, 1);
+
+        for (int i = 0; i < 20; i++) {
+            assertNotNull(client.getUserByEmail("user" + i + "@example.com"));
+        }
+
+        // Медленна каждая основная реплика, но дублируется не больше 1 + 20 * 0.1 вызовов
+        assertEquals(20, primaryRequests.get());
+        assertTrue(hedgeRequests.get() <= 3, "hedged " + hedgeRequests.get() + " of 20 calls");
+        assertEquals(20.0 - hedgeRequests.get(),
+                meterRegistry.get("userservice.client.hedges").tag("result", "rejected").counter().count());
+    }
+
+    private UserServiceClient client(Duration primaryDelay, double hedgeMaxRatio, int hedgeBurst) throws IOException {
+        primary = stub(primaryRequests, primaryDelay, "primary");
+        hedge = stub(hedgeRequests, Duration.ZERO, "hedge");
+        WebClient hedgeClient = webClient(hedge);
+        return new UserServiceClient(webClient(primary),
+                new StaticListableBeanFactory(Map.of("userServiceHedgeWebClient", hedgeClient))
+                        .getBeanProvider(WebClient.class),
+                new CircuitBreaker(0.5, 20, Duration.ofSeconds(10), Duration.ofSeconds(5), 3),
+                new UserLookupCache(false, Duration.ofMinutes(1), Duration.ofSeconds(5), 100),
+                Duration.ofSeconds(3), Duration.ofMillis(20), Duration.ofMillis(5), hedgeMaxRatio, hedgeBurst,
+                false, 100, Duration.ofMillis(2), meterRegistry);
+    }
+
+    private static WebClient webClient(HttpServer server) {
+        return WebClient.create("http://127.0.0.1:" + server.getAddress().getPort());
+    }
+
+    // Реплика отвечает пользователем, в поле password которого - её имя
+    private static HttpServer stub(AtomicInteger requests, Duration delay, String name) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/users/by-email", exchange -> {
+            try (exchange) {
+                requests.incrementAndGet();
+                Thread.sleep(delay.toMillis());
+                byte[] body = ("{\"email\":\"john@example.com\",\"password\":\"" + name + "\",\"roles\":[\"USER\"]}")
+                        .getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                // Проигравший гонку запрос отменён клиентом, соединение уже закрыто
+            }
+        });
+        server.start();
+        return server;
+    }
+}
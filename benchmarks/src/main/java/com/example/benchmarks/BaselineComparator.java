@@ -0,0 +1,114 @@
+package com.example.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Сравнение результата JMH (-rf json) с сохранённым базовым файлом.
+// Регрессия - ухудшение больше порога, которое не объясняется погрешностью обоих измерений.
+// Бенчмарк из базового файла, которого нет в текущем прогоне, тоже считается провалом:
+// иначе удалённый или переименованный бенчмарк молча выпадает из проверки.
+// Код выхода 1 при регрессии или пропавшем бенчмарке, 2 при неверных аргументах или отсутствии
+// базового файла, поэтому сравнение можно запускать в CI.
+//
+//   java -cp target/benchmarks.jar com.example.benchmarks.BaselineComparator \
+//        baselines/jmh-baseline.json target/jmh-result.json [порог, по умолчанию 0.10]
+public class BaselineComparator {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineComparator <baseline.json> <result.json> [threshold]");
+            System.exit(2);
+        }
+        Path baselinePath = Path.of(args[0]);
+        Path resultPath = Path.of(args[1]);
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 0.10;
+
+        // Без базового файла сравнивать не с чем: это ошибка конфигурации, а не успешная проверка
+        if (!Files.exists(baselinePath)) {
+            System.err.println("No baseline at " + baselinePath + ", record one with: "
+                    + "java -jar target/benchmarks.jar -rf json -rff " + baselinePath);
+            System.exit(2);
+        }
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        Map<String, JsonNode> baseline = index(objectMapper.readTree(baselinePath.toFile()));
+        Map<String, JsonNode> result = index(objectMapper.readTree(resultPath.toFile()));
+
+        int regressions = 0;
+        System.out.printf("%-80s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+        for (Map.Entry<String, JsonNode> entry : result.entrySet()) {
+            JsonNode current = entry.getValue();
+            JsonNode previous = baseline.get(entry.getKey());
+            String unit = current.path("primaryMetric").path("scoreUnit").asText();
+            double currentScore = current.path("primaryMetric").path("score").asDouble();
+            if (previous == null) {
+                System.out.printf("%-80s %14s %11.3f %s %9s%n", entry.getKey(), "-", currentScore, unit, "new");
+                continue;
+            }
+            double previousScore = previous.path("primaryMetric").path("score").asDouble();
+            double error = finite(current.path("primaryMetric").path("scoreError").asDouble())
+                    + finite(previous.path("primaryMetric").path("scoreError").asDouble());
+            // В режиме thrpt больше - лучше, во всех остальных (avgt, sample, ss) - хуже
+            boolean higherIsBetter = "thrpt".equals(current.path("mode").asText());
+            double worsening = higherIsBetter ? previousScore - currentScore : currentScore - previousScore;
+            double change = previousScore == 0 ? 0 : (currentScore - previousScore) / previousScore;
+            boolean regressed = worsening > error && worsening > Math.abs(previousScore) * threshold;
+            if (regressed) {
+                regressions++;
+            }
+            // Погрешность базы больше порога: ухудшение на порог здесь не отличить от шума
+            boolean noisy = finite(previous.path("primaryMetric").path("scoreError").asDouble())
+                    > Math.abs(previousScore) * threshold;
+            System.out.printf("%-80s %11.3f %s %11.3f %s %+8.1f%%%s%s%n", entry.getKey(), previousScore, unit,
+                    currentScore, unit, change * 100, regressed ? "  REGRESSION" : "", noisy ? "  NOISY" : "");
+        }
+
+        int missing = 0;
+        for (Map.Entry<String, JsonNode> entry : baseline.entrySet()) {
+            if (!result.containsKey(entry.getKey())) {
+                missing++;
+                JsonNode previous = entry.getValue();
+                System.out.printf("%-80s %11.3f %s %14s %9s%n", entry.getKey(),
+                        previous.path("primaryMetric").path("score").asDouble(),
+                        previous.path("primaryMetric").path("scoreUnit").asText(), "-", "MISSING");
+            }
+        }
+
+        if (regressions > 0) {
+            System.out.println(regressions + " benchmark(s) regressed by more than " + (int) (threshold * 100) + "%");
+        }
+        if (missing > 0) {
+            System.out.println(missing + " benchmark(s) from the baseline are missing in the current run");
+        }
+        if (regressions > 0 || missing > 0) {
+            System.exit(1);
+        }
+    }
+
+    // Ключ: имя бенчмарка, режим и значения @Param
+    private static Map<String, JsonNode> index(JsonNode results) {
+        Map<String, JsonNode> indexed = new LinkedHashMap<>();
+        for (JsonNode run : results) {
+            StringBuilder key = new StringBuilder(run.path("benchmark").asText())
+                    .append(" [").append(run.path("mode").asText()).append(']');
+            Map<String, String> params = new TreeMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = run.path("params").fields();
+            fields.forEachRemaining(field -> params.put(field.getKey(), field.getValue().asText()));
+            params.forEach((name, value) -> key.append(' ').append(name).append('=').append(value));
+            indexed.put(key.toString(), run);
+        }
+        return indexed;
+    }
+
+    private static double finite(double value) {
+        return Double.isFinite(value) ? value : 0;
+    }
+}
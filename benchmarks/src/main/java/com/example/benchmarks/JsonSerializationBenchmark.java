@@ -0,0 +1,61 @@
+package com.example.benchmarks;
+
+import com.example.authservice.dto.JwtResponse;
+import com.example.authservice.dto.UserDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Jackson на пути входа: ответ userservice (UserDto) читается, ответ клиенту (JwtResponse) пишется
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 3, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class JsonSerializationBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private UserDto userDto;
+
+    private byte[] userDtoJson;
+
+    private JwtResponse jwtResponse;
+
+    @Setup
+    public void setUp() throws IOException {
+        userDto = new UserDto("john@example.com",
+                "$2a$10$Dow1Ip9N8yT8w3o8nU8tGu7gNvIpLfyq6E4uWg6W5w9KpDqVq0N5e", List.of("USER", "ADMIN"));
+        userDtoJson = objectMapper.writeValueAsBytes(userDto);
+        // Длина типичной пары токенов ES256
+        jwtResponse = new JwtResponse("a".repeat(420), "r".repeat(480));
+    }
+
+    @Benchmark
+    public byte[] writeUserDto() throws IOException {
+        return objectMapper.writeValueAsBytes(userDto);
+    }
+
+    @Benchmark
+    public UserDto readUserDto() throws IOException {
+        return objectMapper.readValue(userDtoJson, UserDto.class);
+    }
+
+    @Benchmark
+    public byte[] writeJwtResponse() throws IOException {
+        return objectMapper.writeValueAsBytes(jwtResponse);
+    }
+}
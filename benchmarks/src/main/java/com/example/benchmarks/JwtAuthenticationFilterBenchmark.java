@@ -0,0 +1,99 @@
+package com.example.benchmarks;
+
+import com.example.authservice.config.JwtAuthenticationFilter;
+import com.example.authservice.config.JwtTokenUtil;
+import com.example.authservice.config.SigningKeyManager;
+import com.example.authservice.config.TokenRevocationStore;
+import com.example.authservice.config.VerifiedTokenCache;
+import com.example.authservice.service.TokenRevocationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Накладные расходы фильтра на запрос с токеном: с кэшем проверенных токенов и без него.
+// Запрос и ответ переиспользуются, цепочка фильтров пустая
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(value = 3, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final FilterChain NOOP_CHAIN = (request, response) -> {
+    };
+
+    @Param({"true", "false"})
+    public boolean cacheEnabled;
+
+    private JwtAuthenticationFilter filter;
+
+    private MockHttpServletRequest request;
+
+    private MockHttpServletResponse response;
+
+    private Path workDir;
+
+    @Setup
+    public void setUp() throws IOException {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        workDir = Files.createTempDirectory("benchmark-auth");
+        SigningKeyManager signingKeyManager =
+                new SigningKeyManager(Duration.ofHours(24), 900_000, Duration.ofHours(24), Duration.ofDays(7),
+                        Duration.ofMinutes(1), workDir.resolve("signing-keys"));
+        JwtTokenUtil jwtTokenUtil = new JwtTokenUtil(signingKeyManager, 900_000, Duration.ofHours(24),
+                Duration.ofDays(7), meterRegistry, Tracer.NOOP);
+
+        TokenRevocationStore store = new TokenRevocationStore(workDir.resolve("revocations.log"));
+        // Рассылка отключена, Kafka не нужна
+        TokenRevocationService revocationService =
+                new TokenRevocationService(store, null, new ObjectMapper(), "token-revocations", false);
+
+        filter = new JwtAuthenticationFilter(jwtTokenUtil, new VerifiedTokenCache(cacheEnabled, 10_000),
+                revocationService, meterRegistry);
+
+        request = new MockHttpServletRequest("GET", "/auth/me");
+        request.addHeader("Authorization",
+                "Bearer " + jwtTokenUtil.generateAccessToken("john@example.com", List.of("USER"), "session-1"));
+        response = new MockHttpServletResponse();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(workDir);
+    }
+
+    @Benchmark
+    public Authentication doFilter() throws Exception {
+        filter.doFilter(request, response, NOOP_CHAIN);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.benchmarks;
+
+import com.example.authservice.config.JwtTokenUtil;
+import com.example.authservice.config.SigningKeyManager;
+import com.example.authservice.config.TokenClaims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Выпуск и проверка токенов (ES256): подпись на каждый вход и обновление, проверка на каждый запрос
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(value = 3, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class JwtTokenBenchmark {
+
+    private static final List<String> ROLES = List.of("USER", "ADMIN");
+
+    private JwtTokenUtil jwtTokenUtil;
+
+    private String token;
+
+    private Path keyStoreDir;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Таймеры входят в измеряемую стоимость так же, как в сервисе
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        keyStoreDir = Files.createTempDirectory("benchmark-signing-keys");
+        SigningKeyManager signingKeyManager =
+                new SigningKeyManager(Duration.ofHours(24), 900_000, Duration.ofHours(24), Duration.ofDays(7),
+                        Duration.ofMinutes(1), keyStoreDir);
+        jwtTokenUtil = new JwtTokenUtil(signingKeyManager, 900_000, Duration.ofHours(24),
+                Duration.ofDays(7), meterRegistry, Tracer.NOOP);
+        token = jwtTokenUtil.generateAccessToken("john@example.com", ROLES, "session-1");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(keyStoreDir);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtTokenUtil.generateAccessToken("john@example.com", ROLES, "session-1");
+    }
+
+    @Benchmark
+    public Optional<TokenClaims> validateToken() {
+        return jwtTokenUtil.validateToken(token);
+    }
+}
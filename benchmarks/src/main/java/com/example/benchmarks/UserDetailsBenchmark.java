@@ -0,0 +1,52 @@
+package com.example.benchmarks;
+
+import com.example.userservice.model.User;
+import com.example.userservice.service.MyUserDetails;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Построение GrantedAuthority из ролей пользователя
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 3, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class UserDetailsBenchmark {
+
+    @Param({"1", "3", "10"})
+    public int roleCount;
+
+    private MyUserDetails userDetails;
+
+    @Setup
+    public void setUp() {
+        Set<String> roles = new LinkedHashSet<>();
+        for (int i = 0; i < roleCount; i++) {
+            roles.add(i == 0 ? "USER" : "ROLE" + i);
+        }
+        User user = new User(1L, "John", "john@example.com");
+        user.setRoles(roles);
+        userDetails = new MyUserDetails(user);
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return userDetails.getAuthorities();
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.common.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+// Экспорт span в файл для обоих сервисов. Подключается через AutoConfiguration.imports:
+// сканирование компонентов auth-service и userservice не доходит до com.example.common
+@AutoConfiguration
+@ConditionalOnClass(SpanExporter.class)
+@ConditionalOnProperty(name = "tracing.export.file.path")
+public class FileSpanExportAutoConfiguration {
+
+    @Bean
+    public FileSpanExporter fileSpanExporter(@Value("${tracing.export.file.path}") Path path,
+                                             ObjectProvider<ObjectMapper> objectMapper) throws IOException {
+        return new FileSpanExporter(path, objectMapper.getIfAvailable(ObjectMapper::new));
+    }
+}
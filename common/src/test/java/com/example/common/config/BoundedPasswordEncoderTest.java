@@ -0,0 +1,96 @@
+package com.example.common.config;
+
+import com.example.common.exception.PasswordHashingRejectedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+
+    private final CountDownLatch started = new CountDownLatch(1);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // Делегат держит поток пула, пока тест не отпустит его
+    private final PasswordEncoder blockingDelegate = new PasswordEncoder() {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "hash:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encodedPassword.equals(encode(rawPassword));
+        }
+    };
+
+    // Один поток и одно место в очереди: третья задача уже не помещается
+    private final BoundedPasswordEncoder encoder =
+            new BoundedPasswordEncoder(blockingDelegate, 1, 1, 3, meterRegistry, Tracer.NOOP);
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        encoder.shutdown();
+    }
+
+    @Test
+    void rejectsImmediatelyWhenQueueIsFull() throws InterruptedException {
+        CompletableFuture<String> running = encoder.encodeAsync("first");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = encoder.encodeAsync("second");
+
+        CompletableFuture<Boolean> rejected = encoder.matchesAsync("third", "hash:third");
+
+        assertTrue(rejected.isCompletedExceptionally());
+        CompletionException error = assertThrows(CompletionException.class, rejected::join);
+        PasswordHashingRejectedException cause =
+                assertInstanceOf(PasswordHashingRejectedException.class, error.getCause());
+        assertEquals(3, cause.getRetryAfterSeconds());
+        assertEquals(1.0, meterRegistry.get("password.hashing.rejected").counter().count());
+
+        // Принятые задачи не пострадали
+        release.countDown();
+        assertEquals("hash:first", running.join());
+        assertEquals("hash:second", queued.join());
+    }
+
+    @Test
+    void synchronousCallsThrowRejectionWithoutWaiting() throws InterruptedException {
+        encoder.encodeAsync("first");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        encoder.encodeAsync("second");
+
+        PasswordHashingRejectedException e =
+                assertThrows(PasswordHashingRejectedException.class, () -> encoder.encode("third"));
+        assertEquals(3, e.getRetryAfterSeconds());
+    }
+
+    @Test
+    void delegatesWhenCapacityIsAvailable() {
+        release.countDown();
+
+        String hash = encoder.encode("secret");
+
+        assertEquals("hash:secret", hash);
+        assertTrue(encoder.matches("secret", hash));
+        assertEquals(1, meterRegistry.get("password.hashing.duration").tag("operation", "encode").timer().count());
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// HTTP-клиент генератора. Refresh-токены одноразовые: токен пользователя забирается на время запроса,
+// чтобы два параллельных запроса не предъявили один токен (auth-service отозвал бы сессию)
+class AuthClient {
+
+    static final int SKIPPED = -1;
+
+    private final HttpClient httpClient;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final String baseUrl;
+
+    private final String password;
+
+    private final Duration timeout;
+
+    private final String[] accessTokens;
+
+    private final AtomicReferenceArray<String> refreshTokens;
+
+    AuthClient(HttpClient httpClient, String baseUrl, int users, String password, Duration timeout) {
+        this.httpClient = httpClient;
+        this.baseUrl = baseUrl;
+        this.password = password;
+        this.timeout = timeout;
+        this.accessTokens = new String[users];
+        this.refreshTokens = new AtomicReferenceArray<>(users);
+    }
+
+    // Вход каждого пользователя перед прогоном: токены для сценариев REFRESH и AUTHENTICATED
+    void loginUser(int userIndex) throws IOException, InterruptedException {
+        HttpResponse<String> response = send(Scenario.LOGIN, userIndex);
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Login failed for " + LoadTestOptions.email(userIndex)
+                    + ": " + response.statusCode() + " " + response.body());
+        }
+        JsonNode tokens = objectMapper.readTree(response.body());
+        accessTokens[userIndex] = tokens.path("token").asText();
+        refreshTokens.set(userIndex, tokens.path("refreshToken").asText());
+    }
+
+    // Возвращает HTTP-статус или SKIPPED, если для пользователя сейчас нет свободного refresh-токена
+    int execute(Scenario scenario, int userIndex) throws IOException, InterruptedException {
+        if (scenario == Scenario.REFRESH) {
+            String refreshToken = refreshTokens.getAndSet(userIndex, null);
+            if (refreshToken == null) {
+                return SKIPPED;
+            }
+            HttpResponse<String> response = post(Scenario.REFRESH, Map.of("refreshToken", refreshToken));
+            if (response.statusCode() == 200) {
+                refreshTokens.set(userIndex, objectMapper.readTree(response.body()).path("refreshToken").asText());
+            } else {
+                refreshTokens.set(userIndex, refreshToken);
+            }
+            return response.statusCode();
+        }
+        return send(scenario, userIndex).statusCode();
+    }
+
+    private HttpResponse<String> send(Scenario scenario, int userIndex) throws IOException, InterruptedException {
+        String email = LoadTestOptions.email(userIndex);
+        return switch (scenario) {
+            case LOGIN -> post(scenario, Map.of("username", email, "password", password));
+            case VALIDATE -> post(scenario, Map.of("email", email, "password", password));
+            case AUTHENTICATED -> httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + scenario.path))
+                    .timeout(timeout)
+                    .header("Authorization", "Bearer " + accessTokens[userIndex])
+                    .GET()
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            case REFRESH -> throw new IllegalArgumentException("REFRESH is stateful, use execute()");
+        };
+    }
+
+    private HttpResponse<String> post(Scenario scenario, Map<String, String> body)
+            throws IOException, InterruptedException {
+        return httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + scenario.path))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
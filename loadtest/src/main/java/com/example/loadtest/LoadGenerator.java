@@ -0,0 +1,124 @@
+package com.example.loadtest;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// Генератор нагрузки: каждый запрос выполняется в своём виртуальном потоке, сценарий и пользователь
+// выбираются случайно по весам. Первые warmup секунд результаты не учитываются
+class LoadGenerator {
+
+    private final LoadTestOptions options;
+
+    private final AuthClient client;
+
+    private final Scenario[] weightedScenarios;
+
+    private final Map<Scenario, ScenarioStats> stats = new EnumMap<>(Scenario.class);
+
+    LoadGenerator(LoadTestOptions options, AuthClient client, Map<Scenario, Integer> weights) {
+        this.options = options;
+        this.client = client;
+        List<Scenario> expanded = new ArrayList<>();
+        weights.forEach((scenario, weight) -> {
+            stats.put(scenario, new ScenarioStats(scenario));
+            for (int i = 0; i < weight; i++) {
+                expanded.add(scenario);
+            }
+        });
+        this.weightedScenarios = expanded.toArray(Scenario[]::new);
+    }
+
+    Map<Scenario, ScenarioStats> run() throws InterruptedException {
+        long start = System.nanoTime();
+        long measureFrom = start + options.warmup.toNanos();
+        long end = measureFrom + options.duration.toNanos();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Thread resetter = Thread.ofVirtual().start(() -> {
+                parkUntil(measureFrom);
+                stats.values().forEach(ScenarioStats::reset);
+            });
+            if (options.mode == LoadTestOptions.Mode.CLOSED) {
+                runClosed(executor, end);
+            } else {
+                runOpen(executor, start, end);
+            }
+            resetter.join();
+        }
+        stats.values().forEach(ScenarioStats::finish);
+        return stats;
+    }
+
+    // Замкнутый цикл: concurrency клиентов, следующий запрос после ответа на предыдущий.
+    // Задержка считается от фактической отправки
+    private void runClosed(ExecutorService executor, long end) {
+        for (int i = 0; i < options.concurrency; i++) {
+            executor.submit(() -> {
+                while (System.nanoTime() < end) {
+                    executeOne(System.nanoTime());
+                }
+            });
+        }
+    }
+
+    // Открытый цикл: запрос i отправляется в момент start + i / rate, даже если предыдущие ещё не завершились.
+    // Задержка считается от запланированного момента
+    private void runOpen(ExecutorService executor, long start, long end) {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.rate;
+        AtomicInteger inFlight = new AtomicInteger();
+        for (long i = 0; ; i++) {
+            long intended = start + i * intervalNanos;
+            if (intended >= end) {
+                break;
+            }
+            parkUntil(intended);
+            if (inFlight.get() >= options.maxInFlight) {
+                stats.get(pickScenario()).recordDropped();
+                continue;
+            }
+            inFlight.incrementAndGet();
+            executor.submit(() -> {
+                try {
+                    executeOne(intended);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    private void executeOne(long startedAt) {
+        Scenario scenario = pickScenario();
+        ScenarioStats scenarioStats = stats.get(scenario);
+        int userIndex = ThreadLocalRandom.current().nextInt(options.users);
+        try {
+            int status = client.execute(scenario, userIndex);
+            if (status != AuthClient.SKIPPED) {
+                scenarioStats.record(System.nanoTime() - startedAt, status);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            scenarioStats.recordFailure(System.nanoTime() - startedAt);
+        }
+    }
+
+    private Scenario pickScenario() {
+        return weightedScenarios[ThreadLocalRandom.current().nextInt(weightedScenarios.length)];
+    }
+
+    private static void parkUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
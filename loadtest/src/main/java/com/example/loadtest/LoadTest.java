@@ -0,0 +1,135 @@
+package com.example.loadtest;
+
+import com.example.authservice.AuthServiceApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Нагрузочный прогон auth-service на одной машине без внешних сервисов: auth-service поднимается
+// в этом же процессе, userservice заменяет UserServiceStub, Kafka и предел попыток входа отключены.
+// С target=http://host:port нагружается уже запущенный auth-service.
+//
+//   mvn -pl loadtest -am install -DskipTests
+//   mvn -pl loadtest exec:exec -Dloadtest.args="mode=open rate=300 scenarios=login:1,authenticated:20"
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        Map<Scenario, Integer> weights = parseScenarios(options.scenarios);
+
+        UserServiceStub stub = null;
+        ConfigurableApplicationContext authService = null;
+        try {
+            String baseUrl = options.target;
+            if (baseUrl == null) {
+                stub = new UserServiceStub(options.users, options.password, options.bcryptStrength,
+                        options.userserviceLatency);
+                authService = startAuthService(options, stub.url());
+                baseUrl = "http://127.0.0.1:" + ((WebServerApplicationContext) authService).getWebServer().getPort();
+            }
+
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .build();
+            AuthClient client = new AuthClient(httpClient, baseUrl, options.users, options.password,
+                    Duration.ofSeconds(30));
+
+            if (weights.keySet().stream().anyMatch(Scenario::needsTokens)) {
+                loginAllUsers(client, options.users);
+            }
+
+            System.out.printf("Running %s loop against %s: %s, %s%n", options.mode, baseUrl, weights,
+                    options.mode == LoadTestOptions.Mode.CLOSED
+                            ? "concurrency " + options.concurrency
+                            : "rate " + options.rate + " req/s");
+            Map<Scenario, ScenarioStats> results = new LoadGenerator(options, client, weights).run();
+            report(options, results);
+        } finally {
+            if (authService != null) {
+                authService.close();
+            }
+            if (stub != null) {
+                stub.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext startAuthService(LoadTestOptions options, String userServiceUrl)
+            throws IOException {
+        Path workDir = Files.createTempDirectory("loadtest");
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--userservice.url=" + userServiceUrl,
+                "--auth.password-hashing.bcrypt-strength=" + options.bcryptStrength,
+                "--auth.rate-limit.enabled=false",
+                "--userservice.events.enabled=false",
+                "--jwt.revocation.broadcast-enabled=false",
+                "--jwt.revocation.log-path=" + workDir.resolve("revocations.log"),
+                "--jwt.signing.key-store-path=" + workDir.resolve("signing-keys"),
+                "--spring.kafka.admin.auto-create=false",
+                // Журнал на каждый запрос исказил бы результат. Пакет service указан отдельно:
+                // DEBUG для него в application.yml перекрыл бы уровень родительского пакета
+                "--logging.level.com.example.authservice=WARN",
+                "--logging.level.com.example.authservice.service=WARN"));
+        if (options.virtualThreads) {
+            args.add("--spring.profiles.active=virtual-threads");
+        }
+        options.serviceProperties.forEach((key, value) -> args.add("--" + key + "=" + value));
+        return SpringApplication.run(AuthServiceApplication.class, args.toArray(String[]::new));
+    }
+
+    private static void loginAllUsers(AuthClient client, int users) throws Exception {
+        System.out.printf("Logging in %d users to obtain tokens%n", users);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> logins = new ArrayList<>(users);
+            for (int i = 0; i < users; i++) {
+                int userIndex = i;
+                logins.add(executor.submit(() -> {
+                    client.loginUser(userIndex);
+                    return null;
+                }));
+            }
+            for (Future<?> login : logins) {
+                login.get();
+            }
+        }
+    }
+
+    private static void report(LoadTestOptions options, Map<Scenario, ScenarioStats> results) throws IOException {
+        double seconds = options.duration.toNanos() / 1e9;
+        results.values().forEach(stats -> stats.print(System.out, seconds));
+        if (options.report != null) {
+            try (PrintStream out = new PrintStream(Files.newOutputStream(Path.of(options.report)))) {
+                results.values().forEach(stats -> stats.printDistribution(out));
+            }
+            System.out.println("Latency distribution written to " + options.report);
+        }
+    }
+
+    // login:1,authenticated:10
+    static Map<Scenario, Integer> parseScenarios(String value) {
+        Map<Scenario, Integer> weights = new EnumMap<>(Scenario.class);
+        for (String part : value.split(",")) {
+            String[] nameAndWeight = part.split(":");
+            int weight = nameAndWeight.length > 1 ? Integer.parseInt(nameAndWeight[1]) : 1;
+            weights.put(Scenario.valueOf(nameAndWeight[0].trim().toUpperCase()), weight);
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.loadtest;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Параметры прогона в виде key=value (можно одной строкой через пробелы).
+// Ключи с точкой (например userservice.cache.enabled=false) передаются встроенному auth-service как свойства
+public class LoadTestOptions {
+
+    public enum Mode { CLOSED, OPEN }
+
+    // closed: concurrency клиентов, каждый ждёт ответ перед следующим запросом.
+    // open: запросы приходят с постоянной частотой rate независимо от ответов, задержка считается
+    // от запланированного момента отправки, так что очередь на сервере не скрывается (coordinated omission)
+    Mode mode = Mode.CLOSED;
+
+    // Доли сценариев, например login:1,authenticated:10
+    String scenarios = "login:1";
+
+    int concurrency = 64;
+
+    int rate = 200;
+
+    // Предел одновременно ожидающих запросов в open-режиме; сверх него запросы считаются отброшенными
+    int maxInFlight = 10_000;
+
+    Duration warmup = Duration.ofSeconds(10);
+
+    Duration duration = Duration.ofSeconds(30);
+
+    int users = 1_000;
+
+    String password = "LoadTest-Pass1";
+
+    int bcryptStrength = 10;
+
+    // Задержка ответа заглушки userservice (сеть и БД)
+    Duration userserviceLatency = Duration.ZERO;
+
+    boolean virtualThreads = false;
+
+    // Адрес уже запущенного auth-service; если не задан, поднимается встроенный вместе с заглушкой
+    String target;
+
+    // Файл для полного распределения задержек (формат HdrHistogram)
+    String report;
+
+    final Map<String, String> serviceProperties = new LinkedHashMap<>();
+
+    static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            for (String token : arg.trim().split("\\s+")) {
+                if (token.isEmpty()) {
+                    continue;
+                }
+                int separator = token.indexOf('=');
+                if (separator <= 0) {
+                    throw new IllegalArgumentException("Expected key=value, got: " + token);
+                }
+                options.set(token.substring(0, separator).replaceFirst("^--", ""), token.substring(separator + 1));
+            }
+        }
+        return options;
+    }
+
+    private void set(String key, String value) {
+        switch (key) {
+            case "mode" -> mode = Mode.valueOf(value.toUpperCase());
+            case "scenarios" -> scenarios = value;
+            case "concurrency" -> concurrency = Integer.parseInt(value);
+            case "rate" -> rate = Integer.parseInt(value);
+            case "max-in-flight" -> maxInFlight = Integer.parseInt(value);
+            case "warmup" -> warmup = parseDuration(value);
+            case "duration" -> duration = parseDuration(value);
+            case "users" -> users = Integer.parseInt(value);
+            case "password" -> password = value;
+            case "bcrypt-strength" -> bcryptStrength = Integer.parseInt(value);
+            case "userservice-latency" -> userserviceLatency = parseDuration(value);
+            case "virtual-threads" -> virtualThreads = Boolean.parseBoolean(value);
+            case "target" -> target = value;
+            case "report" -> report = value;
+            default -> {
+                if (!key.contains(".")) {
+                    throw new IllegalArgumentException("Unknown option: " + key);
+                }
+                serviceProperties.put(key, value);
+            }
+        }
+    }
+
+    // 500ms, 30s, 2m
+    static Duration parseDuration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        long amount = Long.parseLong(value.substring(0, value.length() - 1));
+        return switch (value.charAt(value.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            default -> throw new IllegalArgumentException("Unsupported duration: " + value);
+        };
+    }
+
+    static String email(int userIndex) {
+        return "user" + userIndex + "@loadtest.local";
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.loadtest;
+
+// Сценарии нагрузки. AUTHENTICATED - запрос с access-токеном к лёгкому эндпоинту:
+// измеряет проверку токена в JwtAuthenticationFilter и цепочку Spring Security
+enum Scenario {
+    LOGIN("/auth/login"),
+    VALIDATE("/auth/validate"),
+    REFRESH("/auth/refresh"),
+    AUTHENTICATED("/actuator/health");
+
+    final String path;
+
+    Scenario(String path) {
+        this.path = path;
+    }
+
+    boolean needsTokens() {
+        return this == REFRESH || this == AUTHENTICATED;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Результаты одного сценария. Recorder пишет без блокировок из любого числа потоков
+class ScenarioStats {
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    final Scenario scenario;
+
+    private final Recorder recorder = new Recorder(3);
+
+    private final LongAdder errors = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+    private Histogram result;
+
+    ScenarioStats(Scenario scenario) {
+        this.scenario = scenario;
+    }
+
+    void record(long latencyNanos, int status) {
+        recorder.recordValue(latencyNanos);
+        statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+        if (status < 200 || status >= 300) {
+            errors.increment();
+        }
+    }
+
+    void recordFailure(long latencyNanos) {
+        recorder.recordValue(latencyNanos);
+        errors.increment();
+    }
+
+    void recordDropped() {
+        dropped.increment();
+    }
+
+    // Конец прогрева: всё записанное до этого момента отбрасывается
+    void reset() {
+        recorder.reset();
+        errors.reset();
+        dropped.reset();
+        statuses.clear();
+    }
+
+    void finish() {
+        result = recorder.getIntervalHistogram();
+    }
+
+    void print(PrintStream out, double seconds) {
+        long count = result.getTotalCount();
+        out.printf("%-14s %9d req %10.1f req/s %7d err %7d dropped | p50 %8.2f  p90 %8.2f  p99 %8.2f  "
+                        + "p99.9 %8.2f  max %8.2f ms | status %s%n",
+                scenario, count, count / seconds, errors.sum(), dropped.sum(),
+                percentile(50), percentile(90), percentile(99), percentile(99.9),
+                result.getMaxValue() / NANOS_PER_MILLI, statuses);
+    }
+
+    void printDistribution(PrintStream out) {
+        out.println("# " + scenario);
+        result.outputPercentileDistribution(out, NANOS_PER_MILLI);
+    }
+
+    private double percentile(double percentile) {
+        return result.getValueAtPercentile(percentile) / NANOS_PER_MILLI;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.loadtest;
+
+import com.example.authservice.dto.UserDto;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+// Заглушка userservice на HTTP-сервере JDK: те же эндпоинты, что вызывает UserServiceClient,
+// пользователи в памяти. Все пользователи делят один хеш пароля, чтобы старт не тратил время на BCrypt.
+// Хеш с тем же cost, что у auth-service, иначе каждый вход запускал бы пересчёт хеша
+class UserServiceStub implements AutoCloseable {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<String, UserDto> users = new HashMap<>();
+
+    private final long latencyNanos;
+
+    private final HttpServer server;
+
+    UserServiceStub(int userCount, String password, int bcryptStrength, Duration latency) throws IOException {
+        String hash = new BCryptPasswordEncoder(bcryptStrength).encode(password);
+        for (int i = 0; i < userCount; i++) {
+            String email = LoadTestOptions.email(i);
+            users.put(email, new UserDto(email, hash, List.of("USER")));
+        }
+        this.latencyNanos = latency.toNanos();
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/users/by-email/password", exchange -> respond(exchange, 204, null));
+        server.createContext("/users/by-emails", this::findByEmails);
+        server.createContext("/users/by-email", this::findByEmail);
+        server.start();
+    }
+
+    String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private void findByEmail(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getRawQuery();
+        String email = query != null && query.startsWith("email=")
+                ? URLDecoder.decode(query.substring("email=".length()), StandardCharsets.UTF_8)
+                : null;
+        UserDto user = email == null ? null : users.get(email);
+        if (user == null) {
+            respond(exchange, 404, null);
+        } else {
+            respond(exchange, 200, objectMapper.writeValueAsBytes(user));
+        }
+    }
+
+    private void findByEmails(HttpExchange exchange) throws IOException {
+        // Тело читается целиком: readValue(InputStream) закрыл бы поток, и respond() упал бы на чтении остатка
+        List<String> emails = objectMapper.readValue(exchange.getRequestBody().readAllBytes(),
+                new TypeReference<List<String>>() {
+                });
+        List<UserDto> found = new ArrayList<>(emails.size());
+        for (String email : emails) {
+            UserDto user = users.get(email);
+            if (user != null) {
+                found.add(user);
+            }
+        }
+        respond(exchange, 200, objectMapper.writeValueAsBytes(found));
+    }
+
+    private void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        try (exchange) {
+            exchange.getRequestBody().readAllBytes();
+            if (latencyNanos > 0) {
+                Thread.sleep(Duration.ofNanos(latencyNanos));
+            }
+            if (body == null) {
+                exchange.sendResponseHeaders(status, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
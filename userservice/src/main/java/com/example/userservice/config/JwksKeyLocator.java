@@ -0,0 +1,114 @@
+package com.example.userservice.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.ProtectedHeader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.math.BigInteger;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Выбор открытого ключа проверки JWT по kid из кэшированного JWKS auth-service.
+// Набор ключей обновляется в фоне по расписанию; на потоке запроса JWKS запрашивается только
+// при неизвестном kid и не чаще min-refresh-interval, чтобы поток токенов с чужим kid
+// не превращался в поток запросов к auth-service
+public class JwksKeyLocator extends LocatorAdapter<Key> {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwksKeyLocator.class);
+
+    private final Supplier<String> jwksSource;
+
+    private final ObjectMapper objectMapper;
+
+    private final long minRefreshIntervalMillis;
+
+    private volatile Map<String, PublicKey> keys = Map.of();
+
+    private volatile long lastAttemptAt;
+
+    public JwksKeyLocator(Supplier<String> jwksSource, ObjectMapper objectMapper, Duration minRefreshInterval) {
+        this.jwksSource = jwksSource;
+        this.objectMapper = objectMapper;
+        this.minRefreshIntervalMillis = minRefreshInterval.toMillis();
+    }
+
+    @Override
+    protected Key locate(ProtectedHeader header) {
+        String keyId = header.getKeyId();
+        if (keyId == null) {
+            return null;
+        }
+        PublicKey key = keys.get(keyId);
+        if (key == null) {
+            refreshIfAllowed();
+            key = keys.get(keyId);
+        }
+        return key;
+    }
+
+    // Плановое обновление: следующий ключ ротации появляется в JWKS заранее и попадает в кэш до использования
+    @Scheduled(fixedDelayString = "${userservice.security.jwks-refresh-interval-ms:300000}")
+    public void refreshScheduled() {
+        refreshIfAllowed();
+    }
+
+    private synchronized void refreshIfAllowed() {
+        long now = System.currentTimeMillis();
+        if (lastAttemptAt != 0 && now - lastAttemptAt < minRefreshIntervalMillis) {
+            return;
+        }
+        lastAttemptAt = now;
+        try {
+            keys = parse(jwksSource.get());
+            logger.debug("Loaded {} JWT verification keys", keys.size());
+        } catch (RuntimeException | GeneralSecurityException e) {
+            // Известные ключи продолжают работать, пока auth-service недоступен
+            logger.warn("Failed to refresh JWKS: {}", e.getMessage());
+        }
+    }
+
+    private Map<String, PublicKey> parse(String json) throws GeneralSecurityException {
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(json);
+        } catch (Exception e) {
+            throw new IllegalStateException("Malformed JWKS", e);
+        }
+        AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+        parameters.init(new ECGenParameterSpec("secp256r1"));
+        ECParameterSpec p256 = parameters.getParameterSpec(ECParameterSpec.class);
+        KeyFactory keyFactory = KeyFactory.getInstance("EC");
+
+        Map<String, PublicKey> parsed = new HashMap<>();
+        for (JsonNode jwk : root.path("keys")) {
+            // Поддерживаются только ключи ES256, которыми подписывает auth-service
+            if (!"EC".equals(jwk.path("kty").asText()) || !"P-256".equals(jwk.path("crv").asText())) {
+                continue;
+            }
+            ECPoint point = new ECPoint(decodeCoordinate(jwk.path("x").asText()),
+                    decodeCoordinate(jwk.path("y").asText()));
+            parsed.put(jwk.path("kid").asText(), keyFactory.generatePublic(new ECPublicKeySpec(point, p256)));
+        }
+        return Map.copyOf(parsed);
+    }
+
+    private BigInteger decodeCoordinate(String value) {
+        return new BigInteger(1, Base64.getUrlDecoder().decode(value));
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.userservice.config;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Локальная проверка JWT, выпущенных auth-service: подпись ES256 проверяется открытым ключом
+// из кэшированного JWKS, роли берутся из claims. Удалённых вызовов на запрос нет.
+// Refresh-токены и токены отозванных сессий не принимаются
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
+
+    private static final String ROLES_CLAIM = "roles";
+
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    private static final String TYPE_CLAIM = "token_type";
+
+    private static final String SESSION_CLAIM = "sid";
+
+    private static final String REFRESH_TOKEN = "refresh";
+
+    // Парсер потокобезопасен и создаётся один раз
+    private final JwtParser parser;
+
+    private final RevokedSessions revokedSessions;
+
+    // Время проверки токена в фильтре, без остальной цепочки
+    private final Timer filterTimer;
+
+    public JwtAuthenticationFilter(JwksKeyLocator keyLocator, RevokedSessions revokedSessions,
+                                   MeterRegistry meterRegistry) {
+        this.parser = Jwts.parser()
+                .keyLocator(keyLocator)
+                .build();
+        this.revokedSessions = revokedSessions;
+        // Гистограмма агрегируется по экземплярам; фильтр укладывается в доли миллисекунды
+        this.filterTimer = Timer.builder("jwt.filter.duration")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(10_000))
+                .maximumExpectedValue(Duration.ofMillis(100))
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String bearerToken = request.getHeader("Authorization");
+        if (bearerToken != null && bearerToken.startsWith("Bearer ")) {
+            long startedAt = System.nanoTime();
+            try {
+                Claims claims = parser.parseSignedClaims(bearerToken.substring(7)).getPayload();
+                if (REFRESH_TOKEN.equals(claims.get(TYPE_CLAIM, String.class))
+                        || revokedSessions.isRevoked(claims.get(SESSION_CLAIM, String.class))) {
+                    throw new JwtException("Token is not accepted for API access");
+                }
+                UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(claims.getSubject(), null, toAuthorities(claims));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            } catch (JwtException | IllegalArgumentException e) {
+                // Запрос продолжается анонимно, решение принимают правила доступа
+                logger.debug("Rejected JWT: {}", e.getMessage());
+            } finally {
+                filterTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private List<GrantedAuthority> toAuthorities(Claims claims) {
+        Object roles = claims.get(ROLES_CLAIM);
+        if (!(roles instanceof List<?> list)) {
+            return List.of();
+        }
+        return list.stream()
+                .map(String::valueOf)
+                .map(role -> role.startsWith(ROLE_PREFIX) ? role : ROLE_PREFIX + role)
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList();
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.userservice.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+@Configuration
+public class KafkaTopicConfig {
+
+    @Value("${userservice.events.topic:user-events}")
+    private String topic;
+
+    @Value("${userservice.events.partitions:3}")
+    private int partitions;
+
+    @Value("${userservice.events.replicas:1}")
+    private int replicas;
+
+    // Топик событий создаётся при старте, если его ещё нет
+    @Bean
+    public NewTopic userEventsTopic() {
+        return TopicBuilder.name(topic)
+                .partitions(partitions)
+                .replicas(replicas)
+                .build();
+    }
+}
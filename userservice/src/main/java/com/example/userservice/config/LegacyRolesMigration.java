@@ -0,0 +1,66 @@
+package com.example.userservice.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Перенос ролей из старой колонки users.roles (строка через запятую) в таблицу user_roles.
+// Выполняется при старте после создания схемы Hibernate и до приёма запросов, одним SQL
+// на стороне БД. Advisory-блокировка не даёт нескольким узлам мигрировать одновременно,
+// после переноса колонка удаляется, и на следующих запусках миграция ничего не делает
+@Component
+@DependsOn("entityManagerFactory")
+public class LegacyRolesMigration implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(LegacyRolesMigration.class);
+
+    private static final long MIGRATION_LOCK_ID = 7_301_017L;
+
+    private static final String LEGACY_COLUMN_EXISTS =
+            "SELECT count(*) > 0 FROM information_schema.columns " +
+            "WHERE lower(table_name) = 'users' AND lower(column_name) = 'roles'";
+
+    private static final String COPY_ROLES =
+            "INSERT INTO user_roles (user_id, role) " +
+            "SELECT DISTINCT u.id, trim(r.role) FROM users u " +
+            "CROSS JOIN LATERAL unnest(string_to_array(u.roles, ',')) AS r(role) " +
+            "WHERE trim(r.role) <> '' " +
+            "ON CONFLICT DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public LegacyRolesMigration(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!legacyColumnExists()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)", Object.class, MIGRATION_LOCK_ID);
+            // Другой узел мог завершить миграцию, пока мы ждали блокировку
+            if (!legacyColumnExists()) {
+                return;
+            }
+            int copied = jdbcTemplate.update(COPY_ROLES);
+            jdbcTemplate.execute("ALTER TABLE users DROP COLUMN roles");
+            // Старый покрывающий индекс включал roles и удалён вместе с колонкой
+            jdbcTemplate.execute("CREATE UNIQUE INDEX IF NOT EXISTS users_email_id_credentials_idx " +
+                    "ON users (email) INCLUDE (id, password)");
+            logger.info("Migrated {} user roles from users.roles to user_roles", copied);
+        });
+    }
+
+    private boolean legacyColumnExists() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(LEGACY_COLUMN_EXISTS, Boolean.class));
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.userservice.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Отозванные сессии, о которых сообщает auth-service (топик jwt.revocation.topic).
+// Топик читается с начала, поэтому после рестарта набор восстанавливается; хранится
+// только до истечения срока сессии, так что размер ограничен числом недавних выходов
+@Component
+public class RevokedSessions {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevokedSessions.class);
+
+    private static final String SESSION = "SESSION";
+
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    private final ObjectMapper objectMapper;
+
+    public RevokedSessions(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public boolean isRevoked(String sessionId) {
+        if (sessionId == null || revoked.isEmpty()) {
+            return false;
+        }
+        Long expiresAt = revoked.get(sessionId);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    public void revoke(String sessionId, long expiresAt) {
+        if (expiresAt > System.currentTimeMillis()) {
+            revoked.put(sessionId, expiresAt);
+        }
+    }
+
+    // Использованные refresh-токены (TOKEN) сюда не попадают: userservice их не принимает
+    @KafkaListener(topics = "${userservice.security.revocation-topic:token-revocations}",
+            groupId = "#{'userservice-revocations-' + T(java.util.UUID).randomUUID()}",
+            autoStartup = "${userservice.security.revocation-enabled:true}",
+            properties = "auto.offset.reset=earliest")
+    public void onRevocation(String payload) {
+        try {
+            JsonNode revocation = objectMapper.readTree(payload);
+            if (SESSION.equals(revocation.path("kind").asText())) {
+                revoke(revocation.path("id").asText(), revocation.path("expiresAt").asLong());
+            }
+        } catch (Exception e) {
+            logger.warn("Skipping malformed revocation message: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${userservice.security.revocation-purge-interval-ms:600000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+    }
+}
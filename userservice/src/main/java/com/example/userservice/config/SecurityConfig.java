@@ -1,20 +1,34 @@
 package com.example.userservice.config;
 
 
+import com.example.common.config.BoundedPasswordEncoder;
 import com.example.userservice.service.MyUserDetailsService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
-import org.springframework.security.config.annotation.web.configurers.AbstractAuthenticationFilterConfigurer;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
 
 
 @Configuration
@@ -22,18 +36,73 @@ import org.springframework.security.config.annotation.web.configurers.AbstractAu
 @EnableMethodSecurity
 public class SecurityConfig {
 
+    @Value("${userservice.password-hashing.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+    private int passwordHashingThreads;
+
+    @Value("${userservice.password-hashing.queue-capacity:1000}")
+    private int passwordHashingQueueCapacity;
+
+    @Value("${userservice.password-hashing.retry-after-seconds:1}")
+    private long passwordHashingRetryAfterSeconds;
+
+    // Должен совпадать с целевым cost в auth-service, иначе хеши будут пересчитываться при входе
+    @Value("${userservice.password-hashing.bcrypt-strength:10}")
+    private int bcryptStrength;
+
+    @Value("${userservice.security.jwks-url}")
+    private String jwksUrl;
+
+    @Value("${userservice.security.jwks-min-refresh-interval:10s}")
+    private Duration jwksMinRefreshInterval;
+
+    @Value("${userservice.security.jwks-timeout:2s}")
+    private Duration jwksTimeout;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private Tracer tracer;
+
     @Bean
     public UserDetailsService userDetailsService(){
         return new MyUserDetailsService();
     }
 
+    // Открытые ключи auth-service для локальной проверки JWT
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public JwksKeyLocator jwksKeyLocator(ObjectMapper objectMapper) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(jwksTimeout);
+        requestFactory.setReadTimeout(jwksTimeout);
+        RestClient restClient = RestClient.builder().requestFactory(requestFactory).build();
+        return new JwksKeyLocator(() -> restClient.get().uri(jwksUrl).retrieve().body(String.class),
+                objectMapper, jwksMinRefreshInterval);
+    }
+
+    @Bean
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, JwksKeyLocator jwksKeyLocator,
+                                                   RevokedSessions revokedSessions) throws Exception {
         return http.csrf(AbstractHttpConfigurer::disable)
-                .authorizeHttpRequests(auth -> auth.requestMatchers("/users/**").permitAll())
-//                        .anyRequest().authenticated())
-                .formLogin(AbstractAuthenticationFilterConfigurer::permitAll)
-                        .build();
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .authorizeHttpRequests(auth -> auth
+                        .requestMatchers("/actuator/health", "/actuator/metrics/**", "/actuator/prometheus").permitAll()
+                        // Регистрация открыта, роли при ней не принимаются (всегда USER)
+                        .requestMatchers(HttpMethod.POST, "/users").permitAll()
+                        // Учетные данные (хеши паролей) отдаются только auth-service
+                        .requestMatchers("/users/by-email", "/users/by-emails", "/users/by-email/password")
+                        .hasRole("SERVICE")
+                        .requestMatchers("/users/import", "/users/export", "/users/by-role").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.GET, "/users").hasRole("ADMIN")
+                        .requestMatchers("/users/*/roles").hasRole("ADMIN")
+                        // /users/{id}: владелец или ADMIN, проверяется в UserController (@PreAuthorize)
+                        .anyRequest().authenticated())
+                // Без токена - 401, а не редирект на форму входа
+                .exceptionHandling(exceptions -> exceptions
+                        .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
+                .addFilterBefore(new JwtAuthenticationFilter(jwksKeyLocator, revokedSessions, meterRegistry),
+                        UsernamePasswordAuthenticationFilter.class)
+                .build();
     }
 
     @Bean
@@ -44,9 +113,12 @@ public class SecurityConfig {
         return provider;
     }
 
-    @Bean
-    public PasswordEncoder passwordEncoder(){
-        return new BCryptPasswordEncoder();
+    // BCrypt выполняется на ограниченном пуле, при переполнении клиент получает 503
+    @Bean(destroyMethod = "shutdown")
+    public BoundedPasswordEncoder passwordEncoder(){
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(bcryptStrength), passwordHashingThreads,
+                passwordHashingQueueCapacity, passwordHashingRetryAfterSeconds, meterRegistry,
+                tracer);
     }
 
 }
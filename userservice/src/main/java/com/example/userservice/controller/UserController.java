@@ -1,61 +1,120 @@
 package com.example.userservice.controller;
 
+import com.example.userservice.dto.PasswordHashUpdateRequest;
 import com.example.userservice.dto.UserDto;
+import com.example.userservice.dto.UserImportReport;
+import com.example.userservice.dto.UserPage;
+import com.example.userservice.dto.UserSummaryDto;
 import com.example.userservice.exception.UserNotFoundException;
 import com.example.userservice.model.User;
+import com.example.userservice.service.UserImportService;
 import com.example.userservice.service.UserService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.parameters.P;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.Arrays;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 @RestController
 @RequestMapping("/users")
 public class UserController {
 
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    // Запись /users/{id} доступна её владельцу (email из JWT) и ADMIN
+    // #id берётся из @P: без флага -parameters имена параметров в SpEL недоступны
+    private static final String OWNER_OR_ADMIN =
+            "hasRole('ADMIN') or @userService.isOwner(#id, authentication.name)";
+
     @Autowired
     private UserService userService;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private UserImportService userImportService;
 
-    // Создание пользователя
+    // Регистрация: роли из тела игнорируются, новый пользователь всегда получает USER
     @PostMapping
     public ResponseEntity<User> createUser(@RequestBody User user) {
         logger.info("Creating a new user: {}", user);
 
-        // Кодирование пароля перед сохранением
-        String encodedPassword = passwordEncoder.encode(user.getPassword());
-        user.setPassword(encodedPassword);
-
-        // Создание пользователя
+        // Создание пользователя, пароль кодируется один раз внутри UserService
         User createdUser = userService.createUser(user);
 
         // Возврат успешного ответа с созданным пользователем
         return ResponseEntity.status(HttpStatus.CREATED).body(createdUser);
     }
 
-    // Получение всех пользователей
+    // Массовое создание пользователей из NDJSON или CSV (с заголовком name,email,password[,roles]).
+    // Тело читается потоком; ошибочные строки перечисляются в отчёте, остальные сохраняются
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<UserImportReport> importUsers(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body) throws IOException {
+        logger.info("Received bulk user import, content type: {}", contentType);
+        UserImportReport report = userImportService.importUsers(body, MediaType.parseMediaType(contentType));
+        return ResponseEntity.ok(report);
+    }
+
+    // Получение пользователей постранично. Ответ остаётся массивом,
+    // курсор следующей страницы передаётся в заголовке X-Next-Cursor
     @GetMapping
-    public ResponseEntity<List<User>> getAllUsers() {
-        logger.info("Fetching all users");
-        List<User> users = userService.getAllUsers();
-        return ResponseEntity.ok(users);
+    public ResponseEntity<List<UserSummaryDto>> getAllUsers(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limit", defaultValue = "100") int limit) {
+        logger.info("Fetching users page, cursor: {}, limit: {}", cursor, limit);
+        UserPage page = userService.getUsersPage(cursor, limit);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getUsers());
+    }
+
+    // Пользователи с заданной ролью, постранично; курсор следующей страницы в заголовке X-Next-Cursor
+    @GetMapping("/by-role")
+    public ResponseEntity<List<UserSummaryDto>> getUsersByRole(
+            @RequestParam(name = "role") String role,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limit", defaultValue = "100") int limit) {
+        logger.info("Fetching users with role {}, cursor: {}, limit: {}", role, cursor, limit);
+        UserPage page = userService.getUsersByRole(role, cursor, limit);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getUsers());
     }
 
-    // Получение пользователя по Id
+    // Выгрузка всех пользователей в NDJSON без загрузки таблицы в память
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        logger.info("Exporting users as NDJSON");
+        StreamingResponseBody body = userService::exportUsers;
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    // Получение пользователя по Id (хеш пароля в ответ не попадает)
+    @PreAuthorize(OWNER_OR_ADMIN)
     @GetMapping("/{id}")
-    public ResponseEntity<User> getUserById(@PathVariable("id") Long id) {
+    public ResponseEntity<User> getUserById(@P("id") @PathVariable("id") Long id) {
         logger.info("Fetching user with ID: {}", id);
         Optional<User> user = userService.getUserById(id);
         return user.map(ResponseEntity::ok)
@@ -63,8 +122,9 @@ public class UserController {
     }
 
     // Обновление пользователя
+    @PreAuthorize(OWNER_OR_ADMIN)
     @PutMapping("/{id}")
-    public ResponseEntity<?> updateUser(@PathVariable("id") Long id,
+    public ResponseEntity<?> updateUser(@P("id") @PathVariable("id") Long id,
                                         @Valid @RequestBody User userDetails, BindingResult result) {
         if (result.hasErrors()) {
             logger.error("Validation errors while updating user with ID: {}", id);
@@ -77,38 +137,55 @@ public class UserController {
     }
 
     // Удаление пользователя
+    @PreAuthorize(OWNER_OR_ADMIN)
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteUser(@PathVariable("id") Long id) {
+    public ResponseEntity<Void> deleteUser(@P("id") @PathVariable("id") Long id) {
         logger.info("Deleting user with ID: {}", id);
         userService.deleteUser(id);
         return ResponseEntity.noContent().build();
     }
 
+    // Назначение ролей - отдельное действие ADMIN, регистрация и обновление профиля роли не меняют
+    @PreAuthorize("hasRole('ADMIN')")
+    @PutMapping("/{id}/roles")
+    public ResponseEntity<User> updateRoles(@PathVariable("id") Long id, @RequestBody Set<String> roles) {
+        logger.info("Updating roles of user with ID: {}", id);
+        return ResponseEntity.ok(userService.updateRoles(id, roles));
+    }
+
     @GetMapping("/by-email")
     public ResponseEntity<UserDto> getUserByEmail(@RequestParam(name = "email") String email) {
         logger.info("Received request to fetch user by email: {}", email);
 
-        Optional<User> user = userService.getUserByEmail(email);
+        // Самый нагруженный endpoint: читаем только нужные колонки, без загрузки сущности
+        Optional<UserDto> userDto = userService.getUserCredentialsByEmail(email);
 
-        if (user.isEmpty()) {
+        if (userDto.isEmpty()) {
             logger.warn("No user found for email: {}", email);
             return ResponseEntity.notFound().build();
         }
 
-        User userEntity = user.get();
-        logger.info("User found: {}", userEntity);
-
-        // Преобразование роли из строки в список
-        List<String> roles = Arrays.asList(userEntity.getRoles().split(","));
-
         // Возвращаем UserDto с паролем
-        UserDto userDto = new UserDto(
-                userEntity.getEmail(),
-                roles,
-                userEntity.getPassword()  // передаем пароль
-        );
+        return ResponseEntity.ok(userDto.get());
+    }
+
+    // Пакетный поиск по списку email для auth-service: один HTTP-запрос и один SQL-запрос
+    @PostMapping("/by-emails")
+    public ResponseEntity<List<UserDto>> getUsersByEmails(@RequestBody List<String> emails) {
+        logger.info("Received request to fetch {} users by email", emails.size());
+        return ResponseEntity.ok(userService.getUserCredentialsByEmails(emails));
+    }
 
-        return ResponseEntity.ok(userDto);
+    // Замена хеша пароля после пересчёта с новым cost BCrypt (вызывается auth-service).
+    // Проверка роли объявлена на самом методе: endpoint перезаписывает чужой хеш
+    // и не должен открыться из-за изменения правил URL в SecurityConfig
+    @PreAuthorize("hasRole('SERVICE')")
+    @PutMapping("/by-email/password")
+    public ResponseEntity<Void> updatePasswordHash(@Valid @RequestBody PasswordHashUpdateRequest request) {
+        logger.info("Received password hash upgrade for email: {}", request.getEmail());
+        boolean updated = userService.updatePasswordHash(request.getEmail(), request.getPreviousHash(),
+                request.getNewHash());
+        return updated ? ResponseEntity.noContent().build() : ResponseEntity.status(HttpStatus.CONFLICT).build();
     }
 
 }
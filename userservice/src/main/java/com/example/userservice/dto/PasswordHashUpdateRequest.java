@@ -0,0 +1,42 @@
+package com.example.userservice.dto;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+
+// Запрос auth-service на замену хеша пароля после пересчёта с новым cost BCrypt
+public class PasswordHashUpdateRequest {
+
+    @NotBlank(message = "Email is mandatory")
+    @Email(message = "Invalid email format")
+    private String email;
+
+    @NotBlank(message = "Previous hash is mandatory")
+    private String previousHash;
+
+    @NotBlank(message = "New hash is mandatory")
+    private String newHash;
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getPreviousHash() {
+        return previousHash;
+    }
+
+    public void setPreviousHash(String previousHash) {
+        this.previousHash = previousHash;
+    }
+
+    public String getNewHash() {
+        return newHash;
+    }
+
+    public void setNewHash(String newHash) {
+        this.newHash = newHash;
+    }
+}
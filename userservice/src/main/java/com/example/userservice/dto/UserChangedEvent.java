@@ -0,0 +1,68 @@
+package com.example.userservice.dto;
+
+// Событие об изменении пользователя, публикуется в Kafka (топик userservice.events.topic).
+// previousEmail заполняется, если email изменился: потребителям нужно сбросить и старый ключ
+public class UserChangedEvent {
+
+    public static final String CREATED = "USER_CREATED";
+    public static final String UPDATED = "USER_UPDATED";
+    public static final String DELETED = "USER_DELETED";
+    public static final String PASSWORD_CHANGED = "USER_PASSWORD_CHANGED";
+
+    private String type;
+    private Long userId;
+    private String email;
+    private String previousEmail;
+    private long occurredAt;
+
+    public UserChangedEvent() {
+    }
+
+    public UserChangedEvent(String type, Long userId, String email, String previousEmail, long occurredAt) {
+        this.type = type;
+        this.userId = userId;
+        this.email = email;
+        this.previousEmail = previousEmail;
+        this.occurredAt = occurredAt;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getPreviousEmail() {
+        return previousEmail;
+    }
+
+    public void setPreviousEmail(String previousEmail) {
+        this.previousEmail = previousEmail;
+    }
+
+    public long getOccurredAt() {
+        return occurredAt;
+    }
+
+    public void setOccurredAt(long occurredAt) {
+        this.occurredAt = occurredAt;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.userservice.dto;
 
+import java.util.Arrays;
 import java.util.List;
 
 public class UserDto {
@@ -13,6 +14,13 @@ public class UserDto {
         this.password = password;
     }
 
+    // Используется в JPQL-проекции для /users/by-email: роли из user_roles склеиваются в запросе через запятую
+    public UserDto(String email, String roles, String password) {
+        this(email, roles == null || roles.isBlank()
+                ? List.of()
+                : Arrays.stream(roles.split(",")).map(String::trim).toList(), password);
+    }
+
     public String getEmail() {
         return email;
     }
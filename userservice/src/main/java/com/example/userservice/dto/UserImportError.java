@@ -0,0 +1,26 @@
+package com.example.userservice.dto;
+
+// Ошибка в конкретной строке импорта; row считается с 1 без учёта заголовка CSV
+public class UserImportError {
+    private final long row;
+    private final String email;
+    private final String message;
+
+    public UserImportError(long row, String email, String message) {
+        this.row = row;
+        this.email = email;
+        this.message = message;
+    }
+
+    public long getRow() {
+        return row;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.userservice.dto;
+
+import java.util.List;
+
+// Итог массового импорта. Список ошибок ограничен, failed содержит полное число
+public class UserImportReport {
+    private final long total;
+    private final long imported;
+    private final long failed;
+    private final List<UserImportError> errors;
+
+    public UserImportReport(long total, long imported, long failed, List<UserImportError> errors) {
+        this.total = total;
+        this.imported = imported;
+        this.failed = failed;
+        this.errors = errors;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public List<UserImportError> getErrors() {
+        return errors;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.userservice.dto;
+
+// Строка массового импорта (NDJSON или CSV). Роли передаются строкой через запятую
+public class UserImportRow {
+    private String name;
+    private String email;
+    private String password;
+    private String roles;
+
+    public UserImportRow() {
+    }
+
+    public UserImportRow(String name, String email, String password, String roles) {
+        this.name = name;
+        this.email = email;
+        this.password = password;
+        this.roles = roles;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public String getRoles() {
+        return roles;
+    }
+
+    public void setRoles(String roles) {
+        this.roles = roles;
+    }
+}
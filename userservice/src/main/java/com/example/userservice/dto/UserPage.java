@@ -0,0 +1,22 @@
+package com.example.userservice.dto;
+
+import java.util.List;
+
+// Страница keyset-пагинации: nextCursor == null означает, что страниц больше нет
+public class UserPage {
+    private final List<UserSummaryDto> users;
+    private final String nextCursor;
+
+    public UserPage(List<UserSummaryDto> users, String nextCursor) {
+        this.users = users;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<UserSummaryDto> getUsers() {
+        return users;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.userservice.dto;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Пользователь в списках и выгрузке: без хеша пароля
+public class UserSummaryDto {
+    private Long id;
+    private String name;
+    private String email;
+    private List<String> roles;
+
+    public UserSummaryDto(Long id, String name, String email, List<String> roles) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.roles = roles;
+    }
+
+    // Используется в JPQL-проекции: роли из user_roles склеиваются в запросе через запятую
+    public UserSummaryDto(Long id, String name, String email, String roles) {
+        this(id, name, email, roles == null || roles.isBlank()
+                ? List.of()
+                : Arrays.stream(roles.split(",")).map(String::trim).toList());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public List<String> getRoles() {
+        return roles;
+    }
+
+    public void setRoles(List<String> roles) {
+        this.roles = roles;
+    }
+}
@@ -1,11 +1,15 @@
 package com.example.userservice.model;
 
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 
+import java.util.HashSet;
+import java.util.Set;
+
 
 @Entity
 @Table(name = "users")
@@ -26,11 +30,22 @@ public class User {
     private String email;
 
 
+    // Пароль принимается при регистрации, но хеш никогда не отдаётся в ответах
     @NotBlank(message = "Password must not be empty")
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private String password;
 
 
-    private String roles;
+    // Роли хранятся в отдельной таблице user_roles (первичный ключ user_id, role).
+    // Индекс (role, user_id) позволяет выбирать пользователей по роли без полного сканирования.
+    // Из тела запроса роли не читаются: их назначает только ADMIN через PUT /users/{id}/roles
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @ElementCollection
+    @CollectionTable(name = "user_roles",
+            joinColumns = @JoinColumn(name = "user_id"),
+            indexes = @Index(name = "user_roles_role_user_idx", columnList = "role, user_id"))
+    @Column(name = "role", nullable = false, length = 50)
+    private Set<String> roles = new HashSet<>();
 
 
 
@@ -77,13 +92,13 @@ public class User {
         this.password = password;
     }
 
-    public void setRoles(String roles) {
+    public void setRoles(Set<String> roles) {
         this.roles = roles;
     }
 
 
 
-    public String getRoles() {
+    public Set<String> getRoles() {
         return roles;
     }
 
@@ -0,0 +1,25 @@
+package com.example.userservice.repository;
+
+import com.example.userservice.model.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Захват порции самых старых событий: SELECT ... ORDER BY id LIMIT n FOR UPDATE SKIP LOCKED.
+    // Строки, заблокированные relay на другом узле, пропускаются, поэтому узлы делят outbox без координатора.
+    // Таймаут блокировки -2 в Hibernate означает SKIP LOCKED
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select e from OutboxEvent e order by e.id")
+    List<OutboxEvent> lockNextBatch(Pageable pageable);
+}
@@ -1,13 +1,103 @@
 package com.example.userservice.repository;
 
+import com.example.userservice.dto.UserDto;
+import com.example.userservice.dto.UserSummaryDto;
 import com.example.userservice.model.User;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface UserRepository extends JpaRepository<User,Long> {
 
+    // Роли загружаются тем же запросом (left join), а не отдельным ленивым запросом:
+    // сущность часто используется вне транзакции (ответ контроллера, UserDetails)
+    @Override
+    @EntityGraph(attributePaths = "roles")
+    Optional<User> findById(Long id);
 
     Optional<User> findByName(String username);
+
+    @EntityGraph(attributePaths = "roles")
     Optional<User> findByEmail(String email);
+
+    // Проверка владельца для /users/{id}: один запрос по первичному ключу без загрузки сущности
+    boolean existsByIdAndEmail(Long id, String email);
+
+    // Чтение учетных данных для auth-service без загрузки сущности: DTO-проекция
+    // не попадает в persistence context и не участвует в dirty checking.
+    // id, email и password покрываются индексом users_email_id_credentials_idx, роли читаются
+    // по первичному ключу user_roles и склеиваются в строку в том же запросе
+    @Query("select new com.example.userservice.dto.UserDto(u.email, " +
+            "listagg(r, ',') within group (order by r), u.password) " +
+            "from User u left join u.roles r where u.email = :email " +
+            "group by u.id, u.email, u.password")
+    Optional<UserDto> findCredentialsByEmail(@Param("email") String email);
+
+    // Пакетный вариант: один запрос с IN вместо запроса на каждый email
+    @Query("select new com.example.userservice.dto.UserDto(u.email, " +
+            "listagg(r, ',') within group (order by r), u.password) " +
+            "from User u left join u.roles r where u.email in :emails " +
+            "group by u.id, u.email, u.password")
+    List<UserDto> findCredentialsByEmailIn(@Param("emails") Collection<String> emails);
+
+    // Какие из email уже заняты: используется импортом, чтобы не ронять пакетную вставку
+    @Query("select u.email from User u where u.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    @Query("select new com.example.userservice.dto.UserSummaryDto(u.id, u.name, u.email, " +
+            "listagg(r, ',') within group (order by r)) " +
+            "from User u left join u.roles r where u.email in :emails " +
+            "group by u.id, u.name, u.email")
+    List<UserSummaryDto> findSummariesByEmailIn(@Param("emails") Collection<String> emails);
+
+    // Keyset-пагинация: "id > последний id" по первичному ключу вместо OFFSET,
+    // стоимость страницы не зависит от её номера
+    @Query("select new com.example.userservice.dto.UserSummaryDto(u.id, u.name, u.email, " +
+            "listagg(r, ',') within group (order by r)) " +
+            "from User u left join u.roles r where u.id > :afterId " +
+            "group by u.id, u.name, u.email order by u.id")
+    List<UserSummaryDto> findPageAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    // Keyset-страница пользователей с заданной ролью: фильтр идёт по индексу (role, user_id)
+    // в порядке user_id, поэтому страница читается диапазоном индекса даже на больших таблицах.
+    // Второй join возвращает все роли найденного пользователя, а не только искомую
+    @Query("select new com.example.userservice.dto.UserSummaryDto(u.id, u.name, u.email, " +
+            "listagg(r, ',') within group (order by r)) " +
+            "from User u join u.roles withRole left join u.roles r " +
+            "where withRole = :role and u.id > :afterId " +
+            "group by u.id, u.name, u.email order by u.id")
+    List<UserSummaryDto> findPageByRoleAfter(@Param("role") String role,
+                                             @Param("afterId") long afterId,
+                                             Pageable pageable);
+
+    // Потоковое чтение для выгрузки: DTO-проекция не попадает в persistence context,
+    // а fetch size ограничивает число строк, которые драйвер держит в памяти
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("select new com.example.userservice.dto.UserSummaryDto(u.id, u.name, u.email, " +
+            "listagg(r, ',') within group (order by r)) " +
+            "from User u left join u.roles r " +
+            "group by u.id, u.name, u.email order by u.id")
+    Stream<UserSummaryDto> streamAll();
+
+    // Замена хеша только если он не изменился с момента чтения (compare-and-set)
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = :newHash where u.email = :email and u.password = :previousHash")
+    int updatePasswordHash(@Param("email") String email,
+                           @Param("previousHash") String previousHash,
+                           @Param("newHash") String newHash);
 }
@@ -5,7 +5,6 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.stream.Collectors;
 
@@ -19,9 +18,9 @@ public class MyUserDetails implements UserDetails {
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        // Разделяем роли и создаем SimpleGrantedAuthority для каждой
-        return Arrays.stream(user.getRoles().split(","))
-                .map(role -> "ROLE_" + role.trim()) // Добавляем "ROLE_" к каждой роли, если это необходимо
+        // Создаем SimpleGrantedAuthority для каждой роли (роли загружены вместе с пользователем)
+        return user.getRoles().stream()
+                .map(role -> "ROLE_" + role) // Добавляем "ROLE_" к каждой роли, если это необходимо
                 .map(SimpleGrantedAuthority::new)
                 .collect(Collectors.toList());
     }
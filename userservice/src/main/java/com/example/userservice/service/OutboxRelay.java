@@ -0,0 +1,151 @@
+package com.example.userservice.service;
+
+import com.example.userservice.model.OutboxEvent;
+import com.example.userservice.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Доставка событий из outbox в Kafka (at-least-once).
+// Каждая порция захватывается в отдельной транзакции через FOR UPDATE SKIP LOCKED,
+// отправляется целиком и удаляется в той же транзакции после подтверждения брокера.
+// Если узел упадёт до коммита, блокировки снимутся и порцию заберёт другой узел.
+// Порядок сохраняется внутри порции; между порциями разных узлов он не гарантирован,
+// что допустимо: потребители по событию только сбрасывают кэш
+@Component
+@ConditionalOnProperty(name = "userservice.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final String topic;
+
+    private final int batchSize;
+
+    private final int maxBatchesPerPoll;
+
+    private final long sendTimeoutMillis;
+
+    private final Counter published;
+
+    private final Counter failed;
+
+    private final Timer batchTimer;
+
+    private final DistributionSummary batchSizeSummary;
+
+    // Возраст самого старого неотправленного события, которое видел этот узел (мс)
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       KafkaTemplate<String, String> kafkaTemplate,
+                       TransactionTemplate transactionTemplate,
+                       MeterRegistry meterRegistry,
+                       @Value("${userservice.events.topic:user-events}") String topic,
+                       @Value("${userservice.outbox.batch-size:100}") int batchSize,
+                       @Value("${userservice.outbox.max-batches-per-poll:50}") int maxBatchesPerPoll,
+                       @Value("${userservice.outbox.send-timeout:5s}") Duration sendTimeout) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.topic = topic;
+        this.batchSize = batchSize;
+        this.maxBatchesPerPoll = maxBatchesPerPoll;
+        this.sendTimeoutMillis = sendTimeout.toMillis();
+
+        this.published = Counter.builder("outbox.events.published")
+                .description("User events delivered from the outbox to Kafka")
+                .register(meterRegistry);
+        this.failed = Counter.builder("outbox.events.failed")
+                .description("Outbox events that were not acknowledged and will be retried")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("outbox.relay.batch.duration")
+                .description("Time to claim, publish and delete one outbox batch")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("outbox.relay.batch.size")
+                .description("Number of events claimed per outbox batch")
+                .register(meterRegistry);
+        Gauge.builder("outbox.lag.seconds", lagMillis, lag -> lag.get() / 1000.0)
+                .description("Age of the oldest pending outbox event seen by this node")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${userservice.outbox.poll-interval-ms:500}")
+    public void relay() {
+        // Пока порции полные, outbox не пуст: продолжаем без ожидания следующего тика
+        for (int i = 0; i < maxBatchesPerPoll; i++) {
+            Integer claimed = batchTimer.record(() -> transactionTemplate.execute(status -> relayBatch()));
+            if (claimed == null || claimed < batchSize) {
+                return;
+            }
+        }
+    }
+
+    private int relayBatch() {
+        List<OutboxEvent> events = outboxEventRepository.lockNextBatch(PageRequest.of(0, batchSize));
+        if (events.isEmpty()) {
+            lagMillis.set(0);
+            return 0;
+        }
+        batchSizeSummary.record(events.size());
+        lagMillis.set(Math.max(0, System.currentTimeMillis() - events.get(0).getCreatedAt().toEpochMilli()));
+
+        // Отправляем порцию целиком и только потом ждём подтверждений: не платим по round-trip на событие
+        List<CompletableFuture<SendResult<String, String>>> sends = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            sends.add(kafkaTemplate.send(topic, event.getAggregateId(), event.getPayload()));
+        }
+
+        List<Long> delivered = new ArrayList<>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            try {
+                sends.get(i).get(sendTimeoutMillis, TimeUnit.MILLISECONDS);
+                delivered.add(events.get(i).getId());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException | TimeoutException e) {
+                logger.warn("Failed to publish outbox event with ID {}, will retry: {}",
+                        events.get(i).getId(), e.getMessage());
+                break;
+            }
+        }
+
+        failed.increment(events.size() - delivered.size());
+        if (!delivered.isEmpty()) {
+            outboxEventRepository.deleteAllByIdInBatch(delivered);
+            published.increment(delivered.size());
+            logger.debug("Published {} user events to topic {}", delivered.size(), topic);
+        }
+        // Неполная доставка прерывает цикл: повторим на следующем тике
+        return delivered.size() < events.size() ? 0 : events.size();
+    }
+}
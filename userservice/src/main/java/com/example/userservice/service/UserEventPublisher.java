@@ -0,0 +1,75 @@
+package com.example.userservice.service;
+
+import com.example.userservice.dto.UserChangedEvent;
+import com.example.userservice.dto.UserSummaryDto;
+import com.example.userservice.model.OutboxEvent;
+import com.example.userservice.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+// Запись событий об изменении пользователей в outbox.
+// Вызывается только внутри транзакции, меняющей пользователя: событие сохраняется
+// атомарно с изменением, а в Kafka его доставляет OutboxRelay
+@Service
+public class UserEventPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserEventPublisher.class);
+
+    private static final String INSERT_OUTBOX_EVENT =
+            "INSERT INTO user_outbox (aggregate_id, event_type, payload, created_at) VALUES (?, ?, ?, ?)";
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(String type, Long userId, String email, String previousEmail) {
+        Instant now = Instant.now();
+        String payload = toPayload(new UserChangedEvent(type, userId, email, previousEmail, now.toEpochMilli()));
+        outboxEventRepository.save(new OutboxEvent(String.valueOf(userId), type, payload, now));
+        logger.debug("Recorded {} event for user with ID: {}", type, userId);
+    }
+
+    // События о создании пачки пользователей (импорт): одна пакетная JDBC-вставка вместо вставки на событие
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishCreated(List<UserSummaryDto> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        Timestamp createdAt = Timestamp.from(now);
+        List<Object[]> rows = new ArrayList<>(users.size());
+        for (UserSummaryDto user : users) {
+            String payload = toPayload(new UserChangedEvent(UserChangedEvent.CREATED, user.getId(),
+                    user.getEmail(), null, now.toEpochMilli()));
+            rows.add(new Object[]{String.valueOf(user.getId()), UserChangedEvent.CREATED, payload, createdAt});
+        }
+        jdbcTemplate.batchUpdate(INSERT_OUTBOX_EVENT, rows);
+        logger.debug("Recorded {} {} events", users.size(), UserChangedEvent.CREATED);
+    }
+
+    private String toPayload(UserChangedEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize user event", e);
+        }
+    }
+}
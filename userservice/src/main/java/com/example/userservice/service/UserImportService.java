@@ -0,0 +1,408 @@
+package com.example.userservice.service;
+
+import com.example.userservice.dto.UserImportError;
+import com.example.userservice.dto.UserImportReport;
+import com.example.userservice.dto.UserImportRow;
+import com.example.userservice.dto.UserSummaryDto;
+import com.example.userservice.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+// Массовый импорт пользователей из NDJSON или CSV.
+// Вход читается потоком и обрабатывается порциями: пароли порции хешируются параллельно
+// на отдельном пуле, затем строки вставляются одним пакетом JDBC (минуя Hibernate,
+// для которого GenerationType.IDENTITY отключает пакетную вставку).
+// Ошибки отдельных строк попадают в отчёт и не прерывают импорт
+@Service
+public class UserImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserImportService.class);
+
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv");
+
+    private static final String INSERT_USER = "INSERT INTO users (name, email, password) VALUES (?, ?, ?)";
+
+    private static final String INSERT_USER_ROLE = "INSERT INTO user_roles (user_id, role) VALUES (?, ?)";
+
+    private static final Pattern EMAIL = Pattern.compile("^[^@\\s]+@[^@\\s]+\\.[^@\\s]+$");
+
+    // BCrypt учитывает только первые 72 байта пароля, более длинные энкодер отвергает
+    private static final int MAX_PASSWORD_BYTES = 72;
+
+    private final UserRepository userRepository;
+
+    private final UserEventPublisher userEventPublisher;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    // Отдельный BCrypt без очереди BoundedPasswordEncoder: импорт не должен вытеснять
+    // интерактивные запросы из общей очереди и получать от неё 503.
+    // Потоки импорта берутся из того же бюджета CPU, что и пул регистраций, и имеют
+    // пониженный приоритет, чтобы большой импорт не замедлял интерактивное хеширование
+    private final PasswordEncoder hashingEncoder;
+
+    private final ExecutorService hashingExecutor;
+
+    private final int batchSize;
+
+    private final int maxReportedErrors;
+
+    public UserImportService(UserRepository userRepository,
+                             UserEventPublisher userEventPublisher,
+                             JdbcTemplate jdbcTemplate,
+                             TransactionTemplate transactionTemplate,
+                             ObjectMapper objectMapper,
+                             @Value("${userservice.password-hashing.bcrypt-strength:10}") int bcryptStrength,
+                             @Value("${userservice.password-hashing.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int passwordHashingThreads,
+                             @Value("${userservice.import.hashing-threads:0}") int hashingThreads,
+                             @Value("${userservice.import.batch-size:500}") int batchSize,
+                             @Value("${userservice.import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.userRepository = userRepository;
+        this.userEventPublisher = userEventPublisher;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.hashingEncoder = new BCryptPasswordEncoder(bcryptStrength);
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+
+        // 0 - половина бюджета пула регистраций; больше самого бюджета импорт не получает
+        int importThreads = hashingThreads > 0
+                ? Math.min(hashingThreads, passwordHashingThreads)
+                : Math.max(1, passwordHashingThreads / 2);
+        if (hashingThreads > passwordHashingThreads) {
+            logger.warn("userservice.import.hashing-threads={} exceeds the password hashing budget of {} threads, using {}",
+                    hashingThreads, passwordHashingThreads, importThreads);
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.hashingExecutor = Executors.newFixedThreadPool(importThreads, runnable -> {
+            Thread thread = new Thread(runnable, "user-import-hashing-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashingExecutor.shutdownNow();
+    }
+
+    public UserImportReport importUsers(InputStream in, MediaType contentType) throws IOException {
+        boolean csv = CSV.isCompatibleWith(contentType);
+        logger.info("Starting bulk user import, format: {}", csv ? "CSV" : "NDJSON");
+        long startedAt = System.currentTimeMillis();
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Map<String, Integer> csvColumns = csv ? readCsvHeader(reader) : null;
+        ImportProgress progress = new ImportProgress();
+        Set<String> seenEmails = new HashSet<>();
+        List<PendingRow> chunk = new ArrayList<>(batchSize);
+
+        long rowNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            rowNumber++;
+
+            UserImportRow row;
+            try {
+                row = csv ? parseCsvRow(line, csvColumns) : parseJsonRow(line);
+            } catch (IllegalArgumentException e) {
+                progress.fail(rowNumber, null, e.getMessage());
+                continue;
+            }
+
+            String error = validate(row);
+            if (error == null && !seenEmails.add(row.getEmail())) {
+                error = "Duplicate email in import";
+            }
+            if (error != null) {
+                progress.fail(rowNumber, row.getEmail(), error);
+                continue;
+            }
+
+            chunk.add(new PendingRow(rowNumber, row));
+            if (chunk.size() == batchSize) {
+                importChunk(chunk, progress);
+                chunk = new ArrayList<>(batchSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, progress);
+        }
+
+        logger.info("Bulk import finished in {} ms: {} rows, {} imported, {} failed",
+                System.currentTimeMillis() - startedAt, rowNumber, progress.imported, progress.failed);
+        return new UserImportReport(rowNumber, progress.imported, progress.failed, progress.errors);
+    }
+
+    private void importChunk(List<PendingRow> chunk, ImportProgress progress) {
+        // Уже занятые email отсеиваем до вставки, чтобы не откатывать весь пакет из-за одной строки
+        List<String> emails = chunk.stream().map(pending -> pending.row.getEmail()).toList();
+        Set<String> existing = new HashSet<>(userRepository.findExistingEmails(emails));
+        List<PendingRow> candidates = new ArrayList<>(chunk.size());
+        for (PendingRow pending : chunk) {
+            if (existing.contains(pending.row.getEmail())) {
+                progress.fail(pending.rowNumber, pending.row.getEmail(), "Email already exists");
+            } else {
+                candidates.add(pending);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        List<PendingRow> rows = hashPasswords(candidates, progress);
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> insertRows(rows));
+            progress.imported += rows.size();
+        } catch (DataAccessException e) {
+            // Пакет откатился (например, email заняли параллельно): вставляем по одной строке,
+            // чтобы найти виноватые строки и сохранить остальные
+            logger.warn("Batch insert of {} users failed, retrying row by row: {}", rows.size(), e.getMessage());
+            for (PendingRow pending : rows) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insertRows(List.of(pending)));
+                    progress.imported++;
+                } catch (DuplicateKeyException duplicate) {
+                    progress.fail(pending.rowNumber, pending.row.getEmail(), "Email already exists");
+                } catch (DataAccessException rowError) {
+                    progress.fail(pending.rowNumber, pending.row.getEmail(), "Could not insert user");
+                }
+            }
+        }
+    }
+
+    // Хеширует пароли порции параллельно. Ошибка энкодера в одной строке попадает в отчёт
+    // как ошибка этой строки, остальные строки порции продолжают импорт
+    private List<PendingRow> hashPasswords(List<PendingRow> rows, ImportProgress progress) {
+        List<CompletableFuture<Boolean>> hashing = new ArrayList<>(rows.size());
+        for (PendingRow pending : rows) {
+            hashing.add(CompletableFuture.supplyAsync(() -> {
+                pending.passwordHash = hashingEncoder.encode(pending.row.getPassword());
+                return true;
+            }, hashingExecutor).exceptionally(e -> {
+                logger.warn("Failed to hash password for import row {}: {}", pending.rowNumber, e.getMessage());
+                return false;
+            }));
+        }
+
+        List<PendingRow> hashed = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            PendingRow pending = rows.get(i);
+            if (hashing.get(i).join()) {
+                hashed.add(pending);
+            } else {
+                progress.fail(pending.rowNumber, pending.row.getEmail(), "Could not hash password");
+            }
+        }
+        return hashed;
+    }
+
+    private void insertRows(List<PendingRow> rows) {
+        List<Object[]> batch = new ArrayList<>(rows.size());
+        for (PendingRow pending : rows) {
+            batch.add(new Object[]{pending.row.getName(), pending.row.getEmail(), pending.passwordHash});
+        }
+        jdbcTemplate.batchUpdate(INSERT_USER, batch);
+
+        // id назначает БД, перечитываем их одним запросом для ролей и событий outbox
+        List<UserSummaryDto> inserted = userRepository.findSummariesByEmailIn(
+                rows.stream().map(pending -> pending.row.getEmail()).toList());
+        Map<String, Long> idsByEmail = new HashMap<>();
+        for (UserSummaryDto user : inserted) {
+            idsByEmail.put(user.getEmail(), user.getId());
+        }
+
+        List<Object[]> roles = new ArrayList<>();
+        for (PendingRow pending : rows) {
+            Long userId = idsByEmail.get(pending.row.getEmail());
+            for (String role : parseRoles(pending.row.getRoles())) {
+                roles.add(new Object[]{userId, role});
+            }
+        }
+        if (!roles.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_USER_ROLE, roles);
+        }
+        userEventPublisher.publishCreated(inserted);
+    }
+
+    private Set<String> parseRoles(String roles) {
+        Set<String> parsed = new LinkedHashSet<>();
+        if (roles != null) {
+            for (String role : roles.split(",")) {
+                if (!role.isBlank()) {
+                    parsed.add(role.trim());
+                }
+            }
+        }
+        return parsed;
+    }
+
+    private String validate(UserImportRow row) {
+        if (row.getEmail() == null || !EMAIL.matcher(row.getEmail()).matches()) {
+            return "Invalid email format";
+        }
+        if (row.getName() == null || row.getName().isBlank()) {
+            return "Name must not be empty";
+        }
+        if (row.getName().length() < 2 || row.getName().length() > 50) {
+            return "Name must be between 2 and 50 characters";
+        }
+        if (row.getPassword() == null || row.getPassword().isEmpty()) {
+            return "Password must not be empty";
+        }
+        if (row.getPassword().getBytes(StandardCharsets.UTF_8).length > MAX_PASSWORD_BYTES) {
+            return "Password must be at most " + MAX_PASSWORD_BYTES + " bytes";
+        }
+        return null;
+    }
+
+    private UserImportRow parseJsonRow(String line) {
+        try {
+            return objectMapper.readValue(line, UserImportRow.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed JSON line");
+        }
+    }
+
+    private Map<String, Integer> readCsvHeader(BufferedReader reader) throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV header is missing");
+        }
+        List<String> names = splitCsvLine(header);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("name", "email", "password")) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("CSV header must contain column: " + required);
+            }
+        }
+        return columns;
+    }
+
+    private UserImportRow parseCsvRow(String line, Map<String, Integer> columns) {
+        List<String> values = splitCsvLine(line);
+        return new UserImportRow(
+                csvValue(values, columns.get("name")),
+                csvValue(values, columns.get("email")),
+                csvValue(values, columns.get("password")),
+                csvValue(values, columns.get("roles")));
+    }
+
+    private String csvValue(List<String> values, Integer index) {
+        if (index == null || index >= values.size()) {
+            return null;
+        }
+        String value = values.get(index);
+        return value.isEmpty() ? null : value;
+    }
+
+    // Разбор строки CSV (RFC 4180): поля в кавычках могут содержать запятые и удвоенные кавычки.
+    // Переводы строк внутри полей не поддерживаются: одна запись - одна строка
+    private List<String> splitCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private static final class PendingRow {
+
+        private final long rowNumber;
+
+        private final UserImportRow row;
+
+        private String passwordHash;
+
+        private PendingRow(long rowNumber, UserImportRow row) {
+            this.rowNumber = rowNumber;
+            this.row = row;
+        }
+    }
+
+    private final class ImportProgress {
+
+        private final List<UserImportError> errors = new ArrayList<>();
+
+        private long imported;
+
+        private long failed;
+
+        private void fail(long rowNumber, String email, String message) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new UserImportError(rowNumber, email, message));
+            }
+        }
+    }
+}
@@ -1,27 +1,67 @@
 package com.example.userservice.service;
 
+import com.example.userservice.dto.UserChangedEvent;
+import com.example.userservice.dto.UserDto;
+import com.example.userservice.dto.UserPage;
+import com.example.userservice.dto.UserSummaryDto;
+import com.example.userservice.exception.UserNotFoundException;
 import com.example.userservice.model.User;
 import com.example.userservice.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.kafka.common.errors.ResourceNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 @Service
 public class UserService {
 
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
 
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private static final int EXPORT_FLUSH_INTERVAL = 500;
+
+    private static final int MAX_BATCH_SIZE = 500;
+
+    // Роль пользователя, зарегистрированного через POST /users
+    private static final String DEFAULT_ROLE = "USER";
+
+    private static final Pattern BCRYPT_HASH = Pattern.compile("^\\$2[aby]?\\$\\d{2}\\$[./A-Za-z0-9]{53}$");
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserEventPublisher userEventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     // Метод для проверки пустого пароля
     private void validatePassword(String password) {
         if (password == null || password.isEmpty()) {
@@ -43,18 +83,84 @@ public class UserService {
         logger.info("Encoded password: {}", encodedPassword);
 
         user.setPassword(encodedPassword);
-        User savedUser = userRepository.save(user);
+        // Роли из запроса не принимаются: регистрация открыта, иначе любой мог бы стать ADMIN или SERVICE
+        user.setId(null);
+        user.setRoles(new HashSet<>(Set.of(DEFAULT_ROLE)));
+        // Транзакция открывается только после хеширования: соединение с БД не держится на время BCrypt
+        User savedUser = transactionTemplate.execute(status -> {
+            User saved = userRepository.save(user);
+            userEventPublisher.publish(UserChangedEvent.CREATED, saved.getId(), saved.getEmail(), null);
+            return saved;
+        });
         logger.info("User created successfully with ID: {}", savedUser.getId());
         return savedUser;
     }
 
 
-    // Метод получения всех пользователей
-    public List<User> getAllUsers() {
-        logger.info("Fetching all users");
-        List<User> users = userRepository.findAll();
-        logger.info("Total users found: {}", users.size());
-        return users;
+    // Метод получения страницы пользователей (keyset-пагинация по id)
+    public UserPage getUsersPage(String cursor, int limit) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        long afterId = decodeCursor(cursor);
+        logger.info("Fetching users page after ID {} with size {}", afterId, pageSize);
+
+        List<UserSummaryDto> users = userRepository.findPageAfter(afterId, PageRequest.of(0, pageSize));
+        // Полная страница означает, что дальше могут быть ещё пользователи
+        String nextCursor = users.size() == pageSize
+                ? encodeCursor(users.get(users.size() - 1).getId())
+                : null;
+        return new UserPage(users, nextCursor);
+    }
+
+    // Метод получения страницы пользователей с заданной ролью (keyset-пагинация по id)
+    public UserPage getUsersByRole(String role, String cursor, int limit) {
+        if (role == null || role.isBlank()) {
+            throw new IllegalArgumentException("Role must not be empty");
+        }
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        long afterId = decodeCursor(cursor);
+        logger.info("Fetching users with role {} after ID {} with size {}", role, afterId, pageSize);
+
+        List<UserSummaryDto> users = userRepository.findPageByRoleAfter(role, afterId, PageRequest.of(0, pageSize));
+        String nextCursor = users.size() == pageSize
+                ? encodeCursor(users.get(users.size() - 1).getId())
+                : null;
+        return new UserPage(users, nextCursor);
+    }
+
+    // Потоковая выгрузка всех пользователей в NDJSON: по одной строке JSON на пользователя.
+    // Память не растёт с размером таблицы: строки читаются порциями и сразу пишутся в ответ
+    @Transactional(readOnly = true)
+    public void exportUsers(OutputStream out) throws IOException {
+        logger.info("Exporting all users as NDJSON");
+        long exported = 0;
+        try (Stream<UserSummaryDto> users = userRepository.streamAll()) {
+            Iterator<UserSummaryDto> iterator = users.iterator();
+            while (iterator.hasNext()) {
+                out.write(objectMapper.writeValueAsBytes(iterator.next()));
+                out.write('\n');
+                if (++exported % EXPORT_FLUSH_INTERVAL == 0) {
+                    out.flush();
+                }
+            }
+        }
+        out.flush();
+        logger.info("Exported {} users", exported);
+    }
+
+    private long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page cursor");
+        }
+    }
+
+    private String encodeCursor(long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(id).getBytes(StandardCharsets.UTF_8));
     }
 
     // Метод получения пользователя по ID
@@ -83,7 +189,28 @@ public class UserService {
         return user;
     }
 
+    // Метод чтения учетных данных по email для auth-service (read-only проекция)
+    @Transactional(readOnly = true)
+    public Optional<UserDto> getUserCredentialsByEmail(String email) {
+        logger.debug("Fetching credentials for email: {}", email);
+        return userRepository.findCredentialsByEmail(email);
+    }
+
+    // Метод пакетного чтения учетных данных: ненайденные email просто отсутствуют в ответе
+    @Transactional(readOnly = true)
+    public List<UserDto> getUserCredentialsByEmails(Collection<String> emails) {
+        if (emails.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Too many emails in one request, maximum is " + MAX_BATCH_SIZE);
+        }
+        logger.debug("Fetching credentials for {} emails", emails.size());
+        if (emails.isEmpty()) {
+            return List.of();
+        }
+        return userRepository.findCredentialsByEmailIn(new LinkedHashSet<>(emails));
+    }
+
     // Метод обновления пользователя
+    @Transactional
     public User updateUser(Long id, User userDetails) {
         logger.info("Updating user with ID: {}", id);
         User existingUser = userRepository.findById(id)
@@ -92,15 +219,60 @@ public class UserService {
                     return new ResourceNotFoundException("User not found with id: " + id);
                 });
 
+        String previousEmail = existingUser.getEmail();
         existingUser.setName(userDetails.getName());
         existingUser.setEmail(userDetails.getEmail());
 
         User updatedUser = userRepository.save(existingUser);
+        userEventPublisher.publish(UserChangedEvent.UPDATED, updatedUser.getId(), updatedUser.getEmail(),
+                previousEmail != null && !previousEmail.equals(updatedUser.getEmail()) ? previousEmail : null);
         logger.info("User updated successfully with ID: {}", updatedUser.getId());
         return updatedUser;
     }
 
+    // Назначение ролей пользователю (только ADMIN). Набор заменяется целиком
+    @Transactional
+    public User updateRoles(Long id, Set<String> roles) {
+        if (roles == null || roles.isEmpty() || roles.stream().anyMatch(role -> role == null || role.isBlank())) {
+            throw new IllegalArgumentException("Roles must be a non-empty list of role names");
+        }
+        logger.info("Updating roles of user with ID {} to {}", id, roles);
+        User existingUser = userRepository.findById(id)
+                .orElseThrow(() -> new UserNotFoundException("User with ID " + id + " not found"));
+        existingUser.getRoles().clear();
+        roles.forEach(role -> existingUser.getRoles().add(role.trim()));
+
+        User updatedUser = userRepository.save(existingUser);
+        userEventPublisher.publish(UserChangedEvent.UPDATED, updatedUser.getId(), updatedUser.getEmail(), null);
+        return updatedUser;
+    }
+
+    // Владелец ли аутентифицированный пользователь (email из JWT) записи с этим id
+    @Transactional(readOnly = true)
+    public boolean isOwner(Long id, String email) {
+        return id != null && email != null && userRepository.existsByIdAndEmail(id, email);
+    }
+
+    // Замена хеша пароля на пересчитанный auth-service (новый cost BCrypt).
+    // Пароль не кодируется повторно: приходит уже готовый хеш
+    @Transactional
+    public boolean updatePasswordHash(String email, String previousHash, String newHash) {
+        if (!BCRYPT_HASH.matcher(newHash).matches()) {
+            throw new IllegalArgumentException("New hash is not a valid BCrypt hash");
+        }
+        boolean updated = userRepository.updatePasswordHash(email, previousHash, newHash) > 0;
+        if (updated) {
+            userRepository.findByEmail(email).ifPresent(user ->
+                    userEventPublisher.publish(UserChangedEvent.PASSWORD_CHANGED, user.getId(), email, null));
+            logger.info("Password hash upgraded for user with email: {}", email);
+        } else {
+            logger.warn("Password hash for user with email {} changed concurrently, upgrade skipped", email);
+        }
+        return updated;
+    }
+
     // Удаление пользователя
+    @Transactional
     public void deleteUser(Long id) {
         logger.info("Deleting user with ID: {}", id);
         User existingUser = userRepository.findById(id)
@@ -109,6 +281,7 @@ public class UserService {
                     return new ResourceNotFoundException("User not found with id: " + id);
                 });
         userRepository.delete(existingUser);
+        userEventPublisher.publish(UserChangedEvent.DELETED, existingUser.getId(), existingUser.getEmail(), null);
         logger.info("User deleted successfully with ID: {}", id);
     }
 }
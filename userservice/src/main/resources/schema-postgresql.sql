@@ -0,0 +1,7 @@
+-- Покрывающий индекс для /users/by-email: запрос учетных данных обслуживается
+-- index-only scan без обращения к таблице. id входит в индекс, потому что запрос соединяет
+-- users с user_roles и группирует по нему (роли читаются по первичному ключу user_roles)
+CREATE UNIQUE INDEX IF NOT EXISTS users_email_id_credentials_idx ON users (email) INCLUDE (id, password);
+-- Прежний индекс без id: IF NOT EXISTS не заменяет индекс с тем же именем, поэтому новый
+-- создаётся под другим именем, а старый удаляется после него
+DROP INDEX IF EXISTS users_email_credentials_idx;
@@ -0,0 +1,143 @@
+package com.example.userservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtAuthenticationFilterTest {
+
+    private final KeyPair keyPair = generateKeyPair();
+
+    private final AtomicInteger jwksRequests = new AtomicInteger();
+
+    private final JwksKeyLocator keyLocator = new JwksKeyLocator(() -> {
+        jwksRequests.incrementAndGet();
+        return jwks("key-1", (ECPublicKey) keyPair.getPublic());
+    }, new ObjectMapper(), Duration.ofMinutes(1));
+
+    private final RevokedSessions revokedSessions = new RevokedSessions(new ObjectMapper());
+
+    private final JwtAuthenticationFilter filter = new JwtAuthenticationFilter(keyLocator, revokedSessions,
+            new SimpleMeterRegistry());
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void tokenIsVerifiedLocallyAndRolesBecomeAuthorities() throws Exception {
+        filter.doFilter(request(token("key-1", keyPair)), new MockHttpServletResponse(), new MockFilterChain());
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(authentication);
+        assertEquals("auth-service", authentication.getName());
+        assertEquals(List.of("ROLE_SERVICE"),
+                authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+
+        // Повторные запросы используют кэшированный ключ
+        filter.doFilter(request(token("key-1", keyPair)), new MockHttpServletResponse(), new MockFilterChain());
+        assertEquals(1, jwksRequests.get());
+    }
+
+    @Test
+    void unknownKeyIdIsRejectedWithoutRefetchingJwksOnEveryRequest() throws Exception {
+        KeyPair foreign = generateKeyPair();
+        filter.doFilter(request(token("key-1", keyPair)), new MockHttpServletResponse(), new MockFilterChain());
+        SecurityContextHolder.clearContext();
+
+        for (int i = 0; i < 5; i++) {
+            filter.doFilter(request(token("unknown", foreign)), new MockHttpServletResponse(), new MockFilterChain());
+            assertNull(SecurityContextHolder.getContext().getAuthentication());
+        }
+        assertEquals(1, jwksRequests.get());
+    }
+
+    @Test
+    void revokedSessionAndRefreshTokensAreRejected() throws Exception {
+        revokedSessions.onRevocation("{\"id\":\"session-1\",\"kind\":\"SESSION\",\"expiresAt\":"
+                + (System.currentTimeMillis() + 60_000) + "}");
+
+        filter.doFilter(request(sessionToken("session-1", "access")), new MockHttpServletResponse(), new MockFilterChain());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+
+        filter.doFilter(request(sessionToken("session-2", "refresh")), new MockHttpServletResponse(), new MockFilterChain());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+
+        filter.doFilter(request(sessionToken("session-2", "access")), new MockHttpServletResponse(), new MockFilterChain());
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    private MockHttpServletRequest request(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users/by-email");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+
+    private String token(String keyId, KeyPair signingKey) {
+        return Jwts.builder()
+                .header().keyId(keyId).and()
+                .subject("auth-service")
+                .claim("roles", List.of("SERVICE"))
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(signingKey.getPrivate(), Jwts.SIG.ES256)
+                .compact();
+    }
+
+    private String sessionToken(String sessionId, String type) {
+        return Jwts.builder()
+                .header().keyId("key-1").and()
+                .subject("john@example.com")
+                .claim("roles", List.of("USER"))
+                .claim("sid", sessionId)
+                .claim("token_type", type)
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(keyPair.getPrivate(), Jwts.SIG.ES256)
+                .compact();
+    }
+
+    private static String jwks(String keyId, ECPublicKey publicKey) {
+        return "{\"keys\":[{\"kty\":\"EC\",\"crv\":\"P-256\",\"alg\":\"ES256\",\"kid\":\"" + keyId + "\","
+                + "\"x\":\"" + coordinate(publicKey.getW().getAffineX()) + "\","
+                + "\"y\":\"" + coordinate(publicKey.getW().getAffineY()) + "\"}]}";
+    }
+
+    private static String coordinate(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        byte[] fixed = new byte[32];
+        int length = Math.min(bytes.length, 32);
+        System.arraycopy(bytes, bytes.length - length, fixed, 32 - length, length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(fixed);
+    }
+
+    private static KeyPair generateKeyPair() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+            return generator.generateKeyPair();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
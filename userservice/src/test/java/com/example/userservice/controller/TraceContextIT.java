@@ -0,0 +1,94 @@
+package com.example.userservice.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Запрос auth-service с заголовком traceparent: span userservice (HTTP и SQL) продолжают его трассу.
+// Собственная вероятность выборки 0, поэтому span появятся, только если решение родителя соблюдается
+@SpringBootTest(properties = "management.tracing.sampling.probability=0.0")
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@WithMockUser(roles = "SERVICE")
+class TraceContextIT {
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+
+    private static final String CALLER_SPAN_ID = "00f067aa0ba902b7";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final Path spans;
+
+    static {
+        try {
+            spans = Files.createTempDirectory("userservice-tracing").resolve("spans.jsonl");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("tracing.export.file.path", spans::toString);
+    }
+
+    @Test
+    void requestFromAuthServiceContinuesItsTrace() throws Exception {
+        mockMvc.perform(get("/users/by-email").param("email", "nobody@example.com")
+                        .header("traceparent", "00-" + TRACE_ID + "-" + CALLER_SPAN_ID + "-01"))
+                .andExpect(status().isNotFound());
+
+        List<JsonNode> trace = awaitServerSpan();
+
+        JsonNode server = trace.stream()
+                .filter(span -> "SERVER".equals(span.path("kind").asText()))
+                .findFirst().orElseThrow();
+        assertEquals(CALLER_SPAN_ID, server.path("parentSpanId").asText());
+        assertEquals("userservice", server.path("service").asText());
+        // SQL-запрос поиска пользователя - в той же трассе
+        assertTrue(trace.size() > 1, "JDBC spans must join the caller's trace: " + trace);
+    }
+
+    // BatchSpanProcessor выгружает span с задержкой, поэтому файл читается, пока не появится серверный span
+    private List<JsonNode> awaitServerSpan() throws Exception {
+        long deadline = System.currentTimeMillis() + 20_000;
+        while (System.currentTimeMillis() < deadline) {
+            if (Files.exists(spans)) {
+                List<JsonNode> trace = new ArrayList<>();
+                for (String line : Files.readAllLines(spans)) {
+                    JsonNode span = OBJECT_MAPPER.readTree(line);
+                    if (TRACE_ID.equals(span.path("traceId").asText())) {
+                        trace.add(span);
+                    }
+                }
+                if (trace.stream().anyMatch(span -> "SERVER".equals(span.path("kind").asText()))) {
+                    return trace;
+                }
+            }
+            Thread.sleep(200);
+        }
+        throw new AssertionError("No server span of trace " + TRACE_ID + " was exported");
+    }
+}
@@ -6,6 +6,8 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.test.context.support.WithAnonymousUser;
+import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
@@ -21,6 +23,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @SpringBootTest
 @AutoConfigureMockMvc
 @Transactional
+@WithMockUser(roles = {"ADMIN", "SERVICE"})
 public class UserControllerIT {
 
     @Autowired
@@ -135,7 +138,7 @@ public class UserControllerIT {
                 .andExpect(status().isOk())//проверяем что запрос успешен
                 .andExpect(jsonPath("$.email").value("updated@example.com"))//проверяем что email обновлен
                 .andExpect(jsonPath("$.name").value("John Smith"))
-                .andExpect(jsonPath("$.password").isNotEmpty()); // Убедитесь, что пароль зашифрован
+                .andExpect(jsonPath("$.password").doesNotExist()); // Хеш пароля в ответ не попадает
     }
 
     @Test
@@ -163,4 +166,148 @@ public class UserControllerIT {
                 .andExpect(status().isNotFound());  // Проверяем, что пользователь не найден
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testGetUsersByRole() throws Exception {
+        MvcResult created = mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\": \"admin-role@example.com\", \"name\": \"Admin\", \"password\": \"password123\"}"))
+                .andExpect(status().isCreated())
+                .andReturn();
+        Long adminId = JsonPath.parse(created.getResponse().getContentAsString()).read("$.id", Long.class);
+        // Роли назначает ADMIN отдельным запросом
+        mockMvc.perform(put("/users/" + adminId + "/roles")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"ADMIN\", \"USER\"]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.roles.length()").value(2));
+        mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\": \"user-role@example.com\", \"name\": \"Plain User\", \"password\": \"password123\"}"))
+                .andExpect(status().isCreated());
+
+        // В выборку попадает только пользователь с ролью ADMIN, но с полным набором ролей
+        mockMvc.perform(get("/users/by-role").param("role", "ADMIN"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].email").value("admin-role@example.com"))
+                .andExpect(jsonPath("$[0].roles.length()").value(2));
+
+        mockMvc.perform(get("/users/by-email").param("email", "user-role@example.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.roles[0]").value("USER"));
+    }
+
+    @Test
+    @WithMockUser(roles = {"USER", "ADMIN"})
+    public void testPasswordHashUpdateRequiresServiceRole() throws Exception {
+        // Даже ADMIN не может подменить хеш: это право только auth-service
+        mockMvc.perform(put("/users/by-email/password")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\": \"victim@example.com\", \"previousHash\": \"x\", \"newHash\": \"y\"}"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithAnonymousUser
+    public void testPasswordHashUpdateRequiresAuthentication() throws Exception {
+        mockMvc.perform(put("/users/by-email/password")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\": \"victim@example.com\", \"previousHash\": \"x\", \"newHash\": \"y\"}"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    public void testImportUsersCsv() throws Exception {
+        // Пользователь, который уже существует до импорта
+        mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\": \"existing@example.com\", \"name\": \"Existing\", \"password\": \"password123\"}"))
+                .andExpect(status().isCreated());
+
+        String csv = "name,email,password,roles\n"
+                + "Import One,import1@example.com,password123,\"USER,ADMIN\"\n"
+                + "Import Two,import2@example.com,password123,USER\n"
+                + "Existing,existing@example.com,password123,USER\n"
+                + "Broken,not-an-email,password123,USER\n"
+                + "Import One Again,import1@example.com,password123,USER\n";
+
+        // Ошибочные строки попадают в отчёт, остальные сохраняются
+        mockMvc.perform(post("/users/import")
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(5))
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.failed").value(3))
+                .andExpect(jsonPath("$.errors[?(@.row == 3)].message").value("Email already exists"))
+                .andExpect(jsonPath("$.errors[?(@.row == 4)].message").value("Invalid email format"))
+                .andExpect(jsonPath("$.errors[?(@.row == 5)].message").value("Duplicate email in import"));
+
+        mockMvc.perform(get("/users/by-email").param("email", "import1@example.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.password").value(matchesPattern("^\\$2a\\$10\\$.+")));
+    }
+
+    @Test
+    public void testImportReportsOverlongPasswordAsRowError() throws Exception {
+        // BCrypt не принимает пароль длиннее 72 байт: строка отклоняется, импорт продолжается
+        String longPassword = "p".repeat(80);
+        String ndjson = "{\"name\": \"Long Password\", \"email\": \"long@example.com\", \"password\": \"" + longPassword + "\"}\n"
+                + "{\"name\": \"Short Password\", \"email\": \"short@example.com\", \"password\": \"password123\"}\n";
+
+        mockMvc.perform(post("/users/import")
+                        .contentType("application/x-ndjson")
+                        .content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.errors[0].row").value(1))
+                .andExpect(jsonPath("$.errors[0].message").value("Password must be at most 72 bytes"));
+    }
+
+    @Test
+    @WithAnonymousUser
+    public void testRegistrationIgnoresRequestedRoles() throws Exception {
+        mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\": \"mallory@example.com\", \"name\": \"Mallory\", \"password\": \"password123\", \"roles\": [\"ADMIN\", \"SERVICE\"]}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.roles.length()").value(1))
+                .andExpect(jsonPath("$.roles[0]").value("USER"))
+                .andExpect(jsonPath("$.password").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(username = "owner@example.com", roles = "USER")
+    public void testUserCanAccessOnlyOwnRecord() throws Exception {
+        Long ownId = createUser("owner@example.com");
+        Long otherId = createUser("other@example.com");
+
+        mockMvc.perform(get("/users/" + ownId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.password").doesNotExist());
+
+        mockMvc.perform(get("/users/" + otherId))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(put("/users/" + otherId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\": \"owned@example.com\", \"name\": \"Taken Over\", \"password\": \"password123\"}"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(delete("/users/" + otherId))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(put("/users/" + ownId + "/roles")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"ADMIN\"]"))
+                .andExpect(status().isForbidden());
+    }
+
+    private Long createUser(String email) throws Exception {
+        MvcResult result = mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\": \"" + email + "\", \"name\": \"Some User\", \"password\": \"password123\"}"))
+                .andExpect(status().isCreated())
+                .andReturn();
+        return JsonPath.parse(result.getResponse().getContentAsString()).read("$.id", Long.class);
+    }
+
+}
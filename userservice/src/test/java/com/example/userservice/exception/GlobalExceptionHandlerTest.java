@@ -0,0 +1,37 @@
+package com.example.userservice.exception;
+
+import com.example.common.exception.PasswordHashingRejectedException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class GlobalExceptionHandlerTest {
+
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new RegistrationController())
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .build();
+
+    @Test
+    void rejectedHashingIsAnsweredWith503AndRetryAfter() throws Exception {
+        // Обработчик Exception.class не должен перехватить отказ и превратить его в 500
+        mockMvc.perform(post("/users"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                .andExpect(jsonPath("$.status").value(503));
+    }
+
+    @RestController
+    static class RegistrationController {
+
+        @PostMapping("/users")
+        String register() {
+            throw new PasswordHashingRejectedException(1);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.userservice.service;
+
+import com.example.userservice.model.User;
+import com.example.userservice.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Проверка доставки событий через outbox во встроенный брокер Kafka.
+// Используется H2 вместо PostgreSQL, чтобы тест не зависел от внешней БД
+@SpringBootTest(properties = {
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.url=jdbc:h2:mem:outbox;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.sql.init.mode=never",
+        "userservice.events.partitions=1",
+        "userservice.outbox.poll-interval-ms=100"
+})
+@EmbeddedKafka(partitions = 1, topics = "user-events")
+class OutboxRelayIT {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafka;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void testUserChangesArePublishedInOrder() throws Exception {
+        Map<String, Object> props = KafkaTestUtils.consumerProps("outbox-test", "false", embeddedKafka);
+        try (Consumer<String, String> consumer = new DefaultKafkaConsumerFactory<>(props,
+                new StringDeserializer(), new StringDeserializer()).createConsumer()) {
+            embeddedKafka.consumeFromAnEmbeddedTopic(consumer, "user-events");
+
+            User user = new User();
+            user.setName("Outbox User");
+            user.setEmail("outbox@example.com");
+            user.setPassword("password123");
+            User created = userService.createUser(user);
+
+            userService.updateUser(created.getId(), new User(created.getId(), "Outbox User", "outbox2@example.com"));
+
+            List<ConsumerRecord<String, String>> events = new ArrayList<>();
+            KafkaTestUtils.getRecords(consumer, Duration.ofSeconds(10), 2)
+                    .records("user-events").forEach(events::add);
+            assertEquals(2, events.size());
+
+            ConsumerRecord<String, String> createdEvent = events.get(0);
+            assertEquals(String.valueOf(created.getId()), createdEvent.key());
+            assertTrue(createdEvent.value().contains("\"type\":\"USER_CREATED\""));
+            assertTrue(createdEvent.value().contains("outbox@example.com"));
+
+            ConsumerRecord<String, String> updatedEvent = events.get(1);
+            assertEquals(createdEvent.key(), updatedEvent.key());
+            assertTrue(updatedEvent.value().contains("\"type\":\"USER_UPDATED\""));
+            assertTrue(updatedEvent.value().contains("\"previousEmail\":\"outbox@example.com\""));
+        }
+
+        // Доставленные события удаляются из outbox
+        long deadline = System.currentTimeMillis() + 5000;
+        while (outboxEventRepository.count() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(0, outboxEventRepository.count());
+        assertTrue(meterRegistry.get("outbox.events.published").counter().count() >= 2);
+    }
+}
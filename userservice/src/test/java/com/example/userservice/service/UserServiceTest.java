@@ -1,12 +1,19 @@
 package com.example.userservice.service;
 
+import com.example.userservice.dto.UserChangedEvent;
+import com.example.userservice.dto.UserPage;
+import com.example.userservice.dto.UserSummaryDto;
 import com.example.userservice.model.User;
 import com.example.userservice.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.springframework.data.domain.Pageable;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 
 import java.util.*;
@@ -14,6 +21,7 @@ import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 
@@ -28,9 +36,22 @@ class UserServiceTest {
 	@Mock
 	private PasswordEncoder passwordEncoder;
 
+	@Mock
+	private UserEventPublisher userEventPublisher;
+
+	@Mock
+	private TransactionTemplate transactionTemplate;
+
 	@InjectMocks
 	private UserService userService;
 
+	@BeforeEach
+	public void setUp() {
+		// TransactionTemplate просто выполняет переданный блок
+		when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+				invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+	}
+
 	@Test
 	public void testCreateUser() {
 		// Создаем объект пользователя
@@ -58,6 +79,45 @@ class UserServiceTest {
 		assertNotNull(createdUser.getId());
 
 		verify(userRepository).save(any(User.class));
+		verify(userEventPublisher).publish(UserChangedEvent.CREATED, 1L, "john@example.com", null);
+	}
+
+	@Test
+	public void testCreateUserIgnoresClientSuppliedRolesAndId() {
+		User user = new User();
+		user.setId(42L);
+		user.setName("Mallory");
+		user.setEmail("mallory@example.com");
+		user.setPassword("password123");
+		user.setRoles(new HashSet<>(Set.of("ADMIN", "SERVICE")));
+
+		when(passwordEncoder.encode(any(CharSequence.class))).thenReturn("encodedPassword123");
+		when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+		User createdUser = userService.createUser(user);
+
+		// Открытая регистрация всегда выдаёт только USER и не может перезаписать чужую запись по id
+		assertEquals(Set.of("USER"), createdUser.getRoles());
+		assertNull(createdUser.getId());
+	}
+
+	@Test
+	public void testCreateUserEncodesPasswordOnce() {
+		User user = new User();
+		user.setName("John Doe");
+		user.setEmail("john@example.com");
+		user.setPassword("password123");
+
+		when(passwordEncoder.encode(any(CharSequence.class))).thenReturn("encodedPassword123");
+		when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+		User createdUser = userService.createUser(user);
+
+		// Пароль кодируется ровно один раз и именно исходный, а не уже закодированный
+		assertEquals("encodedPassword123", createdUser.getPassword());
+		verify(passwordEncoder, times(1)).encode(any(CharSequence.class));
+		verify(passwordEncoder).encode("password123");
+		verify(userRepository, times(1)).save(any(User.class));
 	}
 
 	@Test
@@ -102,38 +162,35 @@ class UserServiceTest {
 	}
 
 	@Test
-	public void testGetAllUsers(){
-		//создаем список пользователей
-		List<User> users = new ArrayList<>();
-
-		User user1 = new User();
-		user1.setId(1L);
-		user1.setName("John Doe");
-		user1.setEmail("john@example.com");
-
-		User user2 = new User();
-		user2.setId(2L);
-		user2.setName("Jane Doe");
-		user2.setEmail("jane@example.com");
-
-		users.add(user1);
-		users.add(user2);
+	public void testGetUsersPage(){
+		//создаем страницу пользователей
+		List<UserSummaryDto> users = new ArrayList<>();
+		users.add(new UserSummaryDto(1L, "John Doe", "john@example.com", "USER"));
+		users.add(new UserSummaryDto(2L, "Jane Doe", "jane@example.com", "USER,ADMIN"));
 
 		//мокируем поведение репозитория
-		when(userRepository.findAll())
+		when(userRepository.findPageAfter(eq(0L), any(Pageable.class)))
 				.thenReturn(users);
 
-		//вызываем метод сервиса
-	List<User> foundUsers = userService.getAllUsers();
+		//вызываем метод сервиса: страница заполнена, значит есть курсор на следующую
+		UserPage page = userService.getUsersPage(null, 2);
+
+		assertEquals(2, page.getUsers().size());
+		assertEquals("John Doe", page.getUsers().get(0).getName());
+		assertEquals(List.of("USER", "ADMIN"), page.getUsers().get(1).getRoles());
+		assertNotNull(page.getNextCursor());
+
+		//следующая страница начинается после последнего id
+		when(userRepository.findPageAfter(eq(2L), any(Pageable.class)))
+				.thenReturn(List.of());
 
-	//Проверяем что список пользователей был найден правильно
-		assertEquals(2, foundUsers.size());
-		assertEquals("John Doe", foundUsers.get(0).getName());
-		assertEquals("Jane Doe", foundUsers.get(1).getName());
+		UserPage nextPage = userService.getUsersPage(page.getNextCursor(), 2);
 
+		assertTrue(nextPage.getUsers().isEmpty());
+		assertNull(nextPage.getNextCursor());
 
-		//проверяем что метод findAll был вызван в репозитории
-		verify(userRepository).findAll();
+		//проверяем что findAll больше не используется
+		verify(userRepository, never()).findAll();
 	}
 
 	@Test
@@ -186,6 +243,8 @@ class UserServiceTest {
 		verify(userRepository).findById(1L);
 		verify(userRepository).save(existingUser);
 
+		// email изменился: событие несёт и старый адрес, чтобы потребители сбросили оба ключа
+		verify(userEventPublisher).publish(UserChangedEvent.UPDATED, 1L, "new@example.com", "old@example.com");
 	}
 
 
@@ -204,6 +263,7 @@ class UserServiceTest {
 		// Проверяем, что репозиторий использован для удаления
 		verify(userRepository, times(1))
 				.delete(existingUser);
+		verify(userEventPublisher).publish(UserChangedEvent.DELETED, 1L, "Test User", null);
 	}
 }
 